@@ -0,0 +1,23 @@
+import bench.EvaluatorOps;
+
+/**
+ * The BitBoardEvaluator as measured by bench.BitBoardEvaluatorBenchmark.
+ */
+public class BitBoardEvaluatorWorkload implements EvaluatorOps {
+    private GameState[] positions;
+    private BitBoardEvaluator evaluator;
+    private int next;
+
+    @Override
+    public void setUp(int size) {
+        positions = Positions.midGame(size, 1);
+        evaluator = new BitBoardEvaluator();
+    }
+
+    @Override
+    public int evaluate() {
+        next = (next + 1) & Positions.MASK;
+        var s = positions[next];
+        return evaluator.evaluate(s, s.getPlayerInTurn());
+    }
+}
@@ -0,0 +1,76 @@
+import bench.GameStateOps;
+
+/**
+ * The GameState operations measured by bench.GameStateBenchmark.
+ *
+ * Every call gets the next position of the corpus. Operations that need a fresh move cache (GameState caches
+ * the legal moves until the board changes) work on a copy, and copy measures what that copy costs on its own.
+ */
+public class GameStateWorkload implements GameStateOps {
+    private int size;
+    private GameState[] positions;
+    private int[] legalMove;        //A legal move of every position
+    private int[] moves;
+    private int next;
+
+    @Override
+    public void setUp(int size) {
+        this.size = size;
+        positions = Positions.midGame(size, 1);
+        moves = new int[size * size];
+        legalMove = new int[Positions.COUNT];
+        for(var i = 0; i < Positions.COUNT; i++) {
+            var n = positions[i].legalMoves(moves, 0);
+            legalMove[i] = moves[(i * 31) % n]; //Not always the first, which is in the lowest column
+        }
+    }
+
+    private GameState nextPosition() {
+        next = (next + 1) & Positions.MASK;
+        return positions[next];
+    }
+
+    @Override
+    public Object legalMoves() {
+        return new GameState(nextPosition()).legalMoves();
+    }
+
+    @Override
+    public int legalMovesIntoArray() {
+        return new GameState(nextPosition()).legalMoves(moves, 0);
+    }
+
+    @Override
+    public boolean insertToken() {
+        var s = nextPosition();
+        return new GameState(s).insertToken(legalMove[next]);
+    }
+
+    @Override
+    public boolean makeAndUnmakeMove() {
+        var s = nextPosition();
+        var isLegal = s.makeMove(legalMove[next]);
+        s.unmakeMove();
+        return isLegal;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return new GameState(nextPosition()).isFinished();
+    }
+
+    @Override
+    public int[] countTokens() {
+        return nextPosition().countTokens();
+    }
+
+    @Override
+    public Object copy() {
+        return new GameState(nextPosition());
+    }
+
+    @Override
+    public long canonicalHash() {
+        return Symmetry.forSize(size).canonicalHash(nextPosition());
+    }
+}
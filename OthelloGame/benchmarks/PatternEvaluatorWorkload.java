@@ -0,0 +1,25 @@
+import bench.EvaluatorOps;
+
+/**
+ * The PatternEvaluator as measured by bench.PatternEvaluatorBenchmark.
+ */
+public class PatternEvaluatorWorkload implements EvaluatorOps {
+    private GameState[] positions;  //With pattern indices kept
+    private PatternEvaluator evaluator;
+    private int next;
+
+    @Override
+    public void setUp(int size) {
+        evaluator = PatternEvaluator.fromPositionalWeights(size, 8);
+        var corpus = Positions.midGame(size, 1);
+        positions = new GameState[Positions.COUNT];
+        for(var i = 0; i < Positions.COUNT; i++) positions[i] = evaluator.prepare(corpus[i]);
+    }
+
+    @Override
+    public int evaluate() {
+        next = (next + 1) & Positions.MASK;
+        var s = positions[next];
+        return evaluator.evaluate(s, s.getPlayerInTurn());
+    }
+}
@@ -0,0 +1,32 @@
+import java.util.Random;
+
+/**
+ * Corpus of mid-game positions for the benchmarks: states from random games, taken once between a third and
+ * two thirds of the board is filled, with the player in turn able to move. The same seed gives the same corpus,
+ * so runs can be compared.
+ */
+final class Positions {
+    static final int COUNT = 64;    //A power of two, so benchmarks can cycle through them with a mask
+    static final int MASK = COUNT - 1;
+
+    private Positions() {}
+
+    static GameState[] midGame(int size, long seed) {
+        var rnd = new Random(seed + size);
+        var positions = new GameState[COUNT];
+        var moves = new int[size * size];
+        var n = 0;
+        while(n < COUNT) {
+            var s = new GameState(size, 1);
+            var target = size * size / 3 + rnd.nextInt(size * size / 3);
+            while(s.getTokens(1) + s.getTokens(2) < target) {
+                var k = s.expand(moves, 0);
+                if(k == GameState.FINISHED) break;
+                if(k == 0) s.changePlayer();
+                else s.insertToken(moves[rnd.nextInt(k)]);
+            }
+            if(s.expand(moves, 0) > 0) positions[n++] = s;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,34 @@
+import bench.UtilityOps;
+
+/**
+ * The utility functions measured by bench.UtilityBenchmark.
+ */
+public class UtilityWorkload implements UtilityOps {
+    private GameState[] positions;
+    private MinMaxWizard wizard;
+    private MinMaxWizardWithPruning pruningWizard;
+    private int next;
+
+    @Override
+    public void setUp(int size) {
+        positions = Positions.midGame(size, 1);
+        wizard = new MinMaxWizard();
+        pruningWizard = new MinMaxWizardWithPruning(5);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & Positions.MASK;
+        return next;
+    }
+
+    @Override
+    public int minMaxWizardUtility() {
+        return wizard.utility(positions[nextIndex()]);
+    }
+
+    @Override
+    public int minMaxWizardWithPruningUtility() {
+        var s = positions[nextIndex()];
+        return pruningWizard.utility(s, s.getPlayerInTurn());
+    }
+}
@@ -0,0 +1,19 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks whose names match the arguments (all of them without arguments) with the GC profiler,
+ * so every result has its allocation rate (gc.alloc.rate.norm is bytes per operation) next to its ops/s.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder().addProfiler(GCProfiler.class);
+        if(args.length == 0) options.include("Benchmark");
+        for(var pattern : args) options.include(pattern);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,32 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the BitBoardEvaluator on the mid-game positions of size 8, the only size it supports.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitBoardEvaluatorBenchmark {
+    @Param({"8"})
+    int size;
+
+    private EvaluatorOps ops;
+
+    @Setup
+    public void setUp() {
+        ops = Workloads.create(EvaluatorOps.class, "BitBoardEvaluatorWorkload");
+        ops.setUp(size);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return ops.evaluate();
+    }
+}
@@ -0,0 +1,11 @@
+package bench;
+
+/**
+ * The operation of the evaluator benchmarks, implemented by BitBoardEvaluatorWorkload and PatternEvaluatorWorkload:
+ * evaluating the next position of the corpus for the player in turn.
+ */
+public interface EvaluatorOps {
+    void setUp(int size);
+
+    int evaluate();
+}
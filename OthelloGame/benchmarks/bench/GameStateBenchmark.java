@@ -0,0 +1,67 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the core GameState operations on mid-game positions of sizes 8, 10 and 12, see GameStateWorkload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+    @Param({"8", "10", "12"})
+    int size;
+
+    private GameStateOps ops;
+
+    @Setup
+    public void setUp() {
+        ops = Workloads.create(GameStateOps.class, "GameStateWorkload");
+        ops.setUp(size);
+    }
+
+    @Benchmark
+    public Object legalMoves() {
+        return ops.legalMoves();
+    }
+
+    @Benchmark
+    public int legalMovesIntoArray() {
+        return ops.legalMovesIntoArray();
+    }
+
+    @Benchmark
+    public boolean insertToken() {
+        return ops.insertToken();
+    }
+
+    @Benchmark
+    public boolean makeAndUnmakeMove() {
+        return ops.makeAndUnmakeMove();
+    }
+
+    @Benchmark
+    public boolean isFinished() {
+        return ops.isFinished();
+    }
+
+    @Benchmark
+    public int[] countTokens() {
+        return ops.countTokens();
+    }
+
+    @Benchmark
+    public Object copy() {
+        return ops.copy();
+    }
+
+    @Benchmark
+    public long canonicalHash() {
+        return ops.canonicalHash();
+    }
+}
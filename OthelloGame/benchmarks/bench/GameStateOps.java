@@ -0,0 +1,25 @@
+package bench;
+
+/**
+ * The operations of GameStateBenchmark, implemented by GameStateWorkload. Every call works on the next position
+ * of the corpus.
+ */
+public interface GameStateOps {
+    void setUp(int size);
+
+    Object legalMoves();
+
+    int legalMovesIntoArray();
+
+    boolean insertToken();
+
+    boolean makeAndUnmakeMove();
+
+    boolean isFinished();
+
+    int[] countTokens();
+
+    Object copy();
+
+    long canonicalHash();
+}
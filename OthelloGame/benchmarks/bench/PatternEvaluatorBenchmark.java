@@ -0,0 +1,32 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the PatternEvaluator on the mid-game positions of the sizes it supports, 8 and 10 (see Patterns).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatternEvaluatorBenchmark {
+    @Param({"8", "10"})
+    int size;
+
+    private EvaluatorOps ops;
+
+    @Setup
+    public void setUp() {
+        ops = Workloads.create(EvaluatorOps.class, "PatternEvaluatorWorkload");
+        ops.setUp(size);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return ops.evaluate();
+    }
+}
@@ -0,0 +1,39 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the utility functions of the wizards on mid-game positions of sizes 8, 10 and 12. The evaluators
+ * that can replace them only support some of the sizes, so they have their own benchmarks, BitBoardEvaluatorBenchmark
+ * and PatternEvaluatorBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilityBenchmark {
+    @Param({"8", "10", "12"})
+    int size;
+
+    private UtilityOps ops;
+
+    @Setup
+    public void setUp() {
+        ops = Workloads.create(UtilityOps.class, "UtilityWorkload");
+        ops.setUp(size);
+    }
+
+    @Benchmark
+    public int minMaxWizardUtility() {
+        return ops.minMaxWizardUtility();
+    }
+
+    @Benchmark
+    public int minMaxWizardWithPruningUtility() {
+        return ops.minMaxWizardWithPruningUtility();
+    }
+}
@@ -0,0 +1,13 @@
+package bench;
+
+/**
+ * The operations of UtilityBenchmark, implemented by UtilityWorkload. Every call works on the next position of
+ * the corpus.
+ */
+public interface UtilityOps {
+    void setUp(int size);
+
+    int minMaxWizardUtility();
+
+    int minMaxWizardWithPruningUtility();
+}
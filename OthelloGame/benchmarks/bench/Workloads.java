@@ -0,0 +1,20 @@
+package bench;
+
+/**
+ * JMH only generates benchmarks for classes in a named package, and a named package cannot use the game, which
+ * is in the unnamed package. So every benchmark here delegates to a workload class next to the game (in the
+ * benchmarks directory, unnamed package) through an interface of this package, which the workload implements.
+ * The workload is made by name once in the setup; the calls in the benchmark methods are plain interface calls,
+ * which the JIT inlines since there is a single implementation.
+ */
+final class Workloads {
+    private Workloads() {}
+
+    static <T> T create(Class<T> type, String className) {
+        try {
+            return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch(ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot make the workload " + className + ", is it on the class path?", e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * 8x8 board stored as two 64-bit masks, one per player. Square = col * 8 + row is bit number square.
+ *
+ * Moves and captures are computed for all squares at once by shifting the masks in each of the 8 directions.
+ * The runs of opponent tokens are found with a Kogge-Stone fill (steps of 1, 2 and 4), and a mask removes
+ * the bits that would otherwise wrap around from one column to the next.
+ */
+public class BitBoard implements IBoard {
+    static final int SIZE = 8;
+
+    private static final long NOT_ROW_0 = 0xFEFEFEFEFEFEFEFEL; // Every square except row 0
+    private static final long NOT_ROW_7 = 0x7F7F7F7F7F7F7F7FL; // Every square except row 7
+
+    // Direction i moves SHIFTS[i] bits; MASKS[i] are the squares that can be entered when moving that way.
+    private static final int[] SHIFTS  = { 1, -1, 8, -8, 9, -9, 7, -7 };
+    private static final long[] MASKS  = { NOT_ROW_0, NOT_ROW_7, -1L, -1L, NOT_ROW_0, NOT_ROW_7, NOT_ROW_7, NOT_ROW_0 };
+
+    private long black;
+    private long white;
+
+    BitBoard() {}
+
+    BitBoard(long black, long white) {
+        this.black = black;
+        this.white = white;
+    }
+
+    public int getSize() {
+        return SIZE;
+    }
+
+    public long getBlack() {
+        return black;
+    }
+
+    public long getWhite() {
+        return white;
+    }
+
+    public int get(int square) {
+        var bit = 1L << square;
+        if((black & bit) != 0) return 1;
+        if((white & bit) != 0) return 2;
+        return 0;
+    }
+
+    public void set(int square, int player) {
+        var bit = 1L << square;
+        black &= ~bit;
+        white &= ~bit;
+        if(player == 1) black |= bit;
+        else if(player == 2) white |= bit;
+    }
+
+    public int count(int player) {
+        return Long.bitCount(player == 1 ? black : white);
+    }
+
+    /**
+     * Returns a mask with a bit set for every square that is a legal move for the given player.
+     */
+    public long legalMoveMask(int player) {
+        return moveMask(player == 1 ? black : white, player == 1 ? white : black);
+    }
+
+    public int legalMoves(int player, int[] moves, int offset) {
+        var mask = legalMoveMask(player);
+        var n = 0;
+        while(mask != 0) {
+            moves[offset + n++] = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        return n;
+    }
+
+    public int captureDirections(int square, int player) {
+        var move = 1L << square;
+        if(((black | white) & move) != 0) return 0;
+
+        var own = player == 1 ? black : white;
+        var opp = player == 1 ? white : black;
+        var directions = 0;
+        for(var d = 0; d < 8; d++) {
+            if(flipsInDirection(move, own, opp, SHIFTS[d], MASKS[d]) != 0) directions++;
+        }
+        return directions;
+    }
+
+    public int mobilityAfter(int square, int player) {
+        var move = 1L << square;
+        var own = player == 1 ? black : white;
+        var opp = player == 1 ? white : black;
+        var flips = flips(move, own, opp);
+        return Long.bitCount(moveMask(opp & ~flips, own | flips | move));
+    }
+
+    public int play(int square, int player) {
+        return play(square, player, null, 0);
+    }
+
+    public int play(int square, int player, long[] flipped, int offset) {
+        var move = 1L << square;
+        if(((black | white) & move) != 0) return 0;
+
+        var flips = player == 1 ? flips(move, black, white) : flips(move, white, black);
+        if(flips == 0) return 0;
+
+        if(player == 1) {
+            black |= flips | move;
+            white &= ~flips;
+        } else {
+            white |= flips | move;
+            black &= ~flips;
+        }
+        if(flipped != null) flipped[offset] = flips;
+        return Long.bitCount(flips);
+    }
+
+    public void undo(int square, int player, long[] flipped, int offset) {
+        var flips = flipped[offset];
+        var move = 1L << square;
+        if(player == 1) {
+            black &= ~(flips | move);
+            white |= flips;
+        } else {
+            white &= ~(flips | move);
+            black |= flips;
+        }
+    }
+
+    public int words() {
+        return 1;
+    }
+
+    public IBoard copy() {
+        return new BitBoard(black, white);
+    }
+
+    /**
+     * Returns the squares that are legal moves for the player owning the tokens in own.
+     */
+    static long moveMask(long own, long opp) {
+        var empty = ~(own | opp);
+        var moves = 0L;
+        for(var d = 0; d < 8; d++) {
+            var s = SHIFTS[d];
+            var mask = MASKS[d];
+            var gen = fill(own, opp & mask, s);
+            moves |= shift(gen & opp, s) & empty & mask;
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the tokens turned when the player owning own puts a token on the (empty) square in move.
+     */
+    static long flips(long move, long own, long opp) {
+        var flips = 0L;
+        for(var d = 0; d < 8; d++) flips |= flipsInDirection(move, own, opp, SHIFTS[d], MASKS[d]);
+        return flips;
+    }
+
+    private static long flipsInDirection(long move, long own, long opp, int s, long mask) {
+        var run = fill(move, opp & mask, s);
+        if((shift(run, s) & own & mask) == 0) return 0;
+        return run & ~move;
+    }
+
+    /**
+     * Kogge-Stone occluded fill: extends gen through the contiguous squares of pro in the direction s.
+     */
+    private static long fill(long gen, long pro, int s) {
+        gen |= pro & shift(gen, s);
+        pro &= shift(pro, s);
+        gen |= pro & shift(gen, 2 * s);
+        pro &= shift(pro, 2 * s);
+        gen |= pro & shift(gen, 4 * s);
+        return gen;
+    }
+
+    private static long shift(long x, int s) {
+        return s > 0 ? x << s : x >>> -s;
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Evaluates 8x8 states from three features computed on the bitboards (see BitBoard) with a few dozen bitwise
+ * operations each, plus the positional weights GameState keeps up to date:
+ *  - mobility: the number of legal moves of the player minus those of the opponent.
+ *  - frontier: the opponent's tokens next to an empty square minus the player's. Tokens on the frontier give
+ *    the opponent moves later on, so fewer is better (potential mobility).
+ *  - stability: the player's tokens that can never be turned again minus the opponent's.
+ * Stable tokens are found on the edges with a table of every edge, and then spread inwards: a token is stable
+ * if in each of the four lines through it the line is full or a neighbour is stable.
+ */
+public class BitBoardEvaluator implements IEvaluator {
+    private static final long INNER = 0x007E7E7E7E7E7E00L;      //Every square that is not on an edge
+    private static final long ROW_0 = 0x0101010101010101L;       //Row 0 of every column
+    private static final long GATHER = 0x0102040810204080L;      //Multiplying by this moves bit 8*i of ROW_0 to bit 56+i
+
+    //Default weights, per token or move of difference
+    public static final int MOBILITY = 8;
+    public static final int FRONTIER = 4;
+    public static final int STABILITY = 12;
+    public static final int POSITIONAL = 1;
+
+    private final int mobility, frontier, stability, positional;
+
+    public BitBoardEvaluator() {
+        this(MOBILITY, FRONTIER, STABILITY, POSITIONAL);
+    }
+
+    /**
+     * @param mobility Weight per legal move of difference.
+     * @param frontier Weight per frontier token of difference.
+     * @param stability Weight per stable token of difference.
+     * @param positional Weight of the positional weight sum, see GameState.getWeightSum.
+     */
+    public BitBoardEvaluator(int mobility, int frontier, int stability, int positional) {
+        this.mobility = mobility;
+        this.frontier = frontier;
+        this.stability = stability;
+        this.positional = positional;
+    }
+
+    @Override
+    public int evaluate(GameState s, int player) {
+        var own = s.getTokenMask(player);
+        var opp = s.getTokenMask(3 - player);
+        var v = positional * (player == 1 ? s.getWeightSum() : -s.getWeightSum());
+        if(mobility != 0) v += mobility * (Long.bitCount(BitBoard.moveMask(own, opp)) - Long.bitCount(BitBoard.moveMask(opp, own)));
+        if(frontier != 0) {
+            var nextToEmpty = neighbours(~(own | opp));
+            v += frontier * (Long.bitCount(opp & nextToEmpty) - Long.bitCount(own & nextToEmpty));
+        }
+        if(stability != 0) v += stability * (Long.bitCount(stable(own, opp)) - Long.bitCount(stable(opp, own)));
+        return v;
+    }
+
+    @Override
+    public GameState prepare(GameState s) {
+        if(s.getSize() != BitBoard.SIZE) throw new IllegalArgumentException("BitBoardEvaluator only evaluates 8x8 boards, not " + s.getSize() + "x" + s.getSize());
+        return s;
+    }
+
+    /**
+     * Returns the squares next to (in any of the 8 directions) a square of the mask.
+     */
+    static long neighbours(long mask) {
+        var columns = mask | (mask << 8) | (mask >>> 8);    //Spread to the neighbouring columns, which cannot wrap
+        return (columns << 1 & ~ROW_0) | (columns >>> 1 & ~(ROW_0 << 7)) | (mask << 8) | (mask >>> 8);
+    }
+
+    /**
+     * Returns the tokens of own that the opponent can never turn.
+     */
+    static long stable(long own, long opp) {
+        var filled = own | opp;
+        var stable = edgeStable(own, opp);
+
+        //Full lines cannot take a new token, so none of their tokens can be turned along them
+        long fullColumn = 0, fullRow = 0, fullDiagonal7 = 0, fullDiagonal9 = 0;
+        for(var i = 0; i < 8; i++) {
+            var column = 0xFFL << (8 * i);
+            if((filled & column) == column) fullColumn |= column;
+            var row = ROW_0 << i;
+            if((filled & row) == row) fullRow |= row;
+        }
+        for(var line : Lines.DIAGONALS_7) {
+            if((filled & line) == line) fullDiagonal7 |= line;
+        }
+        for(var line : Lines.DIAGONALS_9) {
+            if((filled & line) == line) fullDiagonal9 |= line;
+        }
+        stable |= fullColumn & fullRow & fullDiagonal7 & fullDiagonal9 & own;
+
+        //A token is stable if each line through it is full or has a stable neighbour
+        var previous = 0L;
+        while(stable != previous) {
+            previous = stable;
+            var alongColumn = (stable << 1) | (stable >>> 1) | fullColumn;
+            var alongRow = (stable << 8) | (stable >>> 8) | fullRow;
+            var alongDiagonal7 = (stable << 7) | (stable >>> 7) | fullDiagonal7;
+            var alongDiagonal9 = (stable << 9) | (stable >>> 9) | fullDiagonal9;
+            stable |= alongColumn & alongRow & alongDiagonal7 & alongDiagonal9 & own & INNER;
+        }
+        return stable;
+    }
+
+    /**
+     * Returns the tokens of own on the four edges that the opponent can never turn, looked up in EdgeTable.
+     */
+    static long edgeStable(long own, long opp) {
+        var table = EdgeTable.STABLE;
+        var stable = 0L;
+        stable |= table[(int) (own & 0xFF) | (int) (opp & 0xFF) << 8] & 0xFFL;                                      //Column 0
+        stable |= (long) (table[(int) (own >>> 56) | (int) (opp >>> 56) << 8] & 0xFF) << 56;                        //Column 7
+        stable |= EdgeTable.SPREAD[table[gather(own) | gather(opp) << 8] & 0xFF];                                   //Row 0
+        stable |= EdgeTable.SPREAD[table[gather(own >>> 7) | gather(opp >>> 7) << 8] & 0xFF] << 7;                  //Row 7
+        return stable & own;
+    }
+
+    //Returns row 0 of the mask as a byte: bit i is the square of column i.
+    private static int gather(long mask) {
+        return (int) (((mask & ROW_0) * GATHER) >>> 56);
+    }
+
+    /**
+     * The diagonals of the board with at least two squares, going up (7) and down (9) in bit order.
+     */
+    private static final class Lines {
+        static final long[] DIAGONALS_7 = diagonals(7);
+        static final long[] DIAGONALS_9 = diagonals(9);
+
+        private static long[] diagonals(int step) {
+            var lines = new long[13];
+            var n = 0;
+            for(var sum = 1; sum < 14; sum++) {  //Squares with col + row (step 7) or col - row + 7 (step 9) equal to sum
+                var line = 0L;
+                for(var col = 0; col < 8; col++) {
+                    var row = step == 7 ? sum - col : col + 7 - sum;
+                    if(row >= 0 && row < 8) line |= 1L << (col * 8 + row);
+                }
+                lines[n++] = line;
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * Stable tokens of an edge, for every edge. An edge is a line of 8 squares given as two bytes, the tokens of
+     * the player and of the opponent. The stable tokens are the player's tokens that are still the player's
+     * after any sequence of tokens put on the edge by either player. Tokens may be put on any empty square of
+     * the edge, as they could capture along another line.
+     */
+    private static final class EdgeTable {
+        static final byte[] STABLE = new byte[1 << 16];        //Index: own | opp << 8
+        static final long[] SPREAD = new long[256];            //Bit i of the index moved to bit 8 * i (column i, row 0)
+
+        static {
+            var done = new boolean[1 << 16];
+            for(var own = 0; own < 256; own++) {
+                for(var opp = 0; opp < 256; opp++) {
+                    if((own & opp) == 0) stable(own, opp, done);
+                }
+                for(var i = 0; i < 8; i++) {
+                    if((own & (1 << i)) != 0) SPREAD[own] |= 1L << (8 * i);
+                }
+            }
+        }
+
+        private static int stable(int own, int opp, boolean[] done) {
+            var index = own | opp << 8;
+            if(done[index]) return STABLE[index] & 0xFF;
+            var stable = own;
+            var empty = ~(own | opp) & 0xFF;
+            for(var x = 0; x < 8 && stable != 0; x++) {
+                if((empty & (1 << x)) == 0) continue;
+                var flips = flips(own, opp, x);
+                stable &= stable(own | (1 << x) | flips, opp & ~flips, done);    //The player puts a token on x
+                flips = flips(opp, own, x);
+                stable &= stable(own & ~flips, opp | (1 << x) | flips, done);    //The opponent does
+            }
+            STABLE[index] = (byte) stable;
+            done[index] = true;
+            return stable;
+        }
+
+        //The tokens of opp turned along the edge when the owner of own puts a token on the empty square x.
+        private static int flips(int own, int opp, int x) {
+            var flips = 0;
+            for(var d = -1; d <= 1; d += 2) {
+                var run = 0;
+                var y = x + d;
+                while(y >= 0 && y < 8 && (opp & (1 << y)) != 0) {
+                    run |= 1 << y;
+                    y += d;
+                }
+                if(y >= 0 && y < 8 && (own & (1 << y)) != 0) flips |= run;
+            }
+            return flips;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Plays the move from an opening book while the game is in the book, and asks another AI otherwise.
+ */
+public class BookAI implements IOthelloAI {
+    private final OpeningBook book;
+    private final IOthelloAI fallback;
+
+    /**
+     * @param book Moves for positions near the start of the game.
+     * @param fallback Decides the moves for positions that are not in the book.
+     */
+    public BookAI(OpeningBook book, IOthelloAI fallback) {
+        this.book = book;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Position decideMove(GameState s) {
+        var square = book.move(s);
+        if(square != TranspositionTable.NO_MOVE && new GameState(s).insertToken(square)) {  //Check, in case the book is damaged
+            return new Position(square / s.getSize(), square % s.getSize());
+        }
+        return fallback.decideMove(s);
+    }
+}
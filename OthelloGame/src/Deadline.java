@@ -0,0 +1,68 @@
+/**
+ * Time budget for a search. The search calls check() at every node and gives up when it returns true.
+ *
+ * Reading the clock costs about as much as a small node, so check() only reads it every 256 calls. Once
+ * the deadline has expired it stays expired, and every thread searching with it sees that through
+ * isExpired().
+ */
+class Deadline {
+    static final Deadline NEVER = new Deadline();
+
+    private static final int CHECK_MASK = 255;
+
+    private final long end;             // System.nanoTime() at which the time is up
+    private final boolean isUnlimited;
+    private volatile boolean isExpired;
+    private int calls;                  // Shared between threads without synchronization; only used to space out clock reads
+
+    /**
+     * @param millis Milliseconds from now until the time is up.
+     */
+    Deadline(long millis) {
+        this.end = System.nanoTime() + millis * 1_000_000L;
+        this.isUnlimited = false;
+    }
+
+    private Deadline() {
+        this.end = 0;
+        this.isUnlimited = true;
+    }
+
+    /**
+     * Returns a deadline that never runs out, but can be ended with expire(), unlike NEVER.
+     */
+    static Deadline unlimited() {
+        return new Deadline();
+    }
+
+    /**
+     * Returns true if the time is up. Cheap enough to call at every node.
+     */
+    boolean check() {
+        if(isExpired) return true;
+        if(!isUnlimited && (++calls & CHECK_MASK) == 0 && System.nanoTime() - end >= 0) isExpired = true;
+        return isExpired;
+    }
+
+    /**
+     * Returns true if check() has found the time to be up, or expire() has been called. Does not read the clock.
+     */
+    boolean isExpired() {
+        return isExpired;
+    }
+
+    /**
+     * Ends the time now, e.g. to stop a search early. Does nothing to NEVER, which is shared.
+     */
+    void expire() {
+        if(this != NEVER) isExpired = true;
+    }
+
+    /**
+     * Returns the milliseconds left, or Long.MAX_VALUE if there is no limit.
+     */
+    long remainingMillis() {
+        if(isUnlimited) return Long.MAX_VALUE;
+        return Math.max(0, (end - System.nanoTime()) / 1_000_000L);
+    }
+}
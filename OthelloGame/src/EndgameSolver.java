@@ -0,0 +1,394 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Plays the end of a game perfectly by searching every line to the end of the game. The value of a state is
+ * the final number of tokens of the player in turn minus those of the opponent, so the solver can either find
+ * the exact value (solve) or only whether the game is won, lost or drawn (solveWinLossDraw), which is faster.
+ *
+ * Searches a single state in place with makeMove and unmakeMove. Moves are ordered fastest first: those that
+ * leave the opponent the fewest moves are searched first, and moves into regions of the board with an odd
+ * number of empty squares before the others. With three or fewer empty squares left the solver tries the
+ * empty squares directly instead of generating moves.
+ *
+ * Solving takes time that grows fast with the empty squares, so a solve can be given a Deadline, which is
+ * checked at every node that generates moves.
+ */
+public class EndgameSolver {
+    public static final int DEFAULT_THRESHOLD = 14;
+    private static final int DEFAULT_TABLE_SIZE = 1 << 18;
+    private static final int INFINITY = 1_000_000;
+
+    private static final int TABLE_MIN_EMPTIES = 7;     //States closer to the end are cheaper to search than to look up
+    private static final int MOBILITY_MIN_EMPTIES = 6;  //Closer to the end, only parity is used to order moves
+    private static final int SHALLOW_EMPTIES = 3;       //This close to the end, empty squares are tried without generating moves
+    private static final int HASH_MOVE_SCORE = 1 << 20;
+    private static final int MOBILITY_WEIGHT = 16;
+    private static final int PARITY_BONUS = 8;
+
+    private int threshold;
+    private final TranspositionTable table;
+    private boolean isSymmetric = false;    //Key the table on the canonical state, see Symmetry
+    private Symmetry symmetry;
+    private Deadline deadline = Deadline.NEVER;
+
+    private GameState state;
+    private int head;           //Sentinel of the list of empty squares
+    private int[] next, prev;   //Doubly linked list of the empty squares, best squares first
+    private int[] regions;      //Quadrant of every square, as a bit
+    private int parity;         //Bit set for every quadrant with an odd number of empty squares
+    private int[][] moves = new int[0][], scores = new int[0][];   //Per number of empty squares
+
+    private int score;
+    private long nodes, nanos;
+
+    public EndgameSolver() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold canSolve is true for states with at most this many empty squares.
+     */
+    public EndgameSolver(int threshold) {
+        this(threshold, DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * @param tableSize Entries in the transposition table, or 0 to search without one.
+     */
+    public EndgameSolver(int threshold, int tableSize) {
+        this.threshold = threshold;
+        table = tableSize > 0 ? new TranspositionTable(tableSize) : null;
+    }
+
+    /**
+     * Keys the transposition table on the canonical state (see Symmetry) instead of the state, so that a state
+     * finds what was stored for any of its mirrors and rotations.
+     */
+    public void setSymmetricKeys(boolean isSymmetric) {
+        this.isSymmetric = isSymmetric;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns true if the state has few enough empty squares to be solved (at most the threshold).
+     */
+    public boolean canSolve(GameState s) {
+        return empties(s) <= threshold;
+    }
+
+    /**
+     * Returns the move that ends the game with the biggest lead for the player in turn, or (-1,-1) if the
+     * player has no legal moves. getScore gives the lead.
+     */
+    public Position solve(GameState s) {
+        return search(s, -INFINITY, INFINITY);
+    }
+
+    /**
+     * Like solve(GameState), but gives up when the deadline expires, e.g. because the time for the move is up
+     * or another thread expired it.
+     * @return the move, or null if the deadline expired before the state was solved.
+     */
+    public Position solve(GameState s, Deadline deadline) {
+        this.deadline = deadline;
+        try {
+            var pos = search(s, -INFINITY, INFINITY);
+            return deadline.isExpired() ? null : pos;
+        } finally {
+            this.deadline = Deadline.NEVER;
+        }
+    }
+
+    /**
+     * Returns a move that wins, or draws if no move wins, for the player in turn, or (-1,-1) if the player has
+     * no legal moves. getScore gives 1 for a win, 0 for a draw and -1 for a loss.
+     */
+    public Position solveWinLossDraw(GameState s) {
+        var pos = search(s, -1, 1);
+        score = Integer.signum(score);
+        return pos;
+    }
+
+    /**
+     * Returns the value of the state of the last solve for the player in turn: the final number of tokens of
+     * the player minus those of the opponent, or just its sign after solveWinLossDraw.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the number of states the last solve visited per second.
+     */
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+
+    public static int empties(GameState s) {
+        return s.getSize() * s.getSize() - s.getTokens(1) - s.getTokens(2);
+    }
+
+    private Position search(GameState s, int alpha, int beta) {
+        var start = System.nanoTime();
+        nodes = 0;
+        if(table != null) table.clear();
+        symmetry = Symmetry.forSize(s.getSize());
+        prepare(s);
+        var empties = empties(s);
+        var best = TranspositionTable.NO_MOVE;
+        var list = moves[empties];
+        var n = state.expand(list, 0);
+        if(n <= 0) score = solve(alpha, beta, empties);
+        else {
+            nodes++;
+            order(list, n, empties, TranspositionTable.NO_MOVE);
+            score = -INFINITY;
+            var a = alpha;
+            for(var i = 0; i < n && a < beta; i++) {
+                var v = searchMove(list[i], a, beta, empties, i == 0);
+                if(deadline.isExpired()) break;
+                if(v > score) {
+                    score = v;
+                    best = list[i];
+                    a = Math.max(a, v);
+                }
+            }
+        }
+        nanos = System.nanoTime() - start;
+        return best == TranspositionTable.NO_MOVE ? new Position(-1, -1) : new Position(best / s.getSize(), best % s.getSize());
+    }
+
+    private void prepare(GameState s) {
+        state = new GameState(s);
+        var size = s.getSize();
+        var squares = size * size;
+        head = squares;
+        if(next == null || next.length != squares + 1) {
+            next = new int[squares + 1];
+            prev = new int[squares + 1];
+            regions = new int[squares];
+            for(var sq = 0; sq < squares; sq++)
+                regions[sq] = 1 << ((sq / size < size / 2 ? 0 : 2) + (sq % size < size / 2 ? 0 : 1));
+        }
+        var empties = empties(s);
+        if(moves.length <= empties) {
+            moves = new int[empties + 1][squares];
+            scores = new int[empties + 1][squares];
+        }
+
+        //Link the empty squares, best squares first, so the shallow searches try them in a good order
+        var weights = PositionalWeights.forSize(size);
+        var order = new Integer[squares];
+        for(var sq = 0; sq < squares; sq++) order[sq] = sq;
+        Arrays.sort(order, (x, y) -> weights[y] - weights[x]);
+        var last = head;
+        parity = 0;
+        for(var sq : order) {
+            if(s.getToken(sq) != 0) continue;
+            next[last] = sq;
+            prev[sq] = last;
+            last = sq;
+            parity ^= regions[sq];
+        }
+        next[last] = head;
+        prev[head] = last;
+    }
+
+    /**
+     * Plays the square, which must be a legal move, and returns its value for the player who played it.
+     * Later moves are first searched with a null window, and again with the full window if they are better.
+     */
+    private int searchMove(int square, int alpha, int beta, int empties, boolean isFirst) {
+        state.makeMove(square);
+        remove(square);
+        int v;
+        if(isFirst) v = -solve(-beta, -alpha, empties - 1);
+        else {
+            v = -solve(-alpha - 1, -alpha, empties - 1);
+            if(v > alpha && v < beta) v = -solve(-beta, -v, empties - 1);
+        }
+        restore(square);
+        state.unmakeMove();
+        return v;
+    }
+
+    //Returns a meaningless value once the deadline has expired, which the callers do not store or use.
+    private int solve(int alpha, int beta, int empties) {
+        if(empties <= SHALLOW_EMPTIES) return solveShallow(alpha, beta, empties, false);
+        nodes++;
+        if(deadline.check()) return 0;
+        var s = state;
+        var isProbing = table != null && empties >= TABLE_MIN_EMPTIES;
+        var t = isProbing && isSymmetric ? symmetry.canonical(s) : 0;  //The symmetry to the state the table knows
+        var key = isProbing && isSymmetric ? symmetry.key(s, t) : s.getHash();
+        var hashMove = TranspositionTable.NO_MOVE;
+        if(isProbing) {
+            var d = table.probe(key);
+            if(d != 0) {
+                var v = TranspositionTable.score(d);
+                var bound = TranspositionTable.bound(d);
+                if(bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && v >= beta)
+                        || (bound == TranspositionTable.UPPER && v <= alpha)) {
+                    table.countCutoff();
+                    return v;
+                }
+                hashMove = TranspositionTable.move(d);
+                if(t != 0 && hashMove != TranspositionTable.NO_MOVE) hashMove = symmetry.inverse[t][hashMove];
+            }
+        }
+
+        var list = moves[empties];
+        var n = s.expand(list, 0);
+        if(n == GameState.FINISHED) return lead(s.getPlayerInTurn());
+        if(n == 0) {
+            s.makePass();
+            var v = -solve(-beta, -alpha, empties);
+            s.unmakeMove();
+            return v;
+        }
+
+        order(list, n, empties, hashMove);
+        var best = -INFINITY;
+        var bestMove = TranspositionTable.NO_MOVE;
+        var a = alpha;
+        for(var i = 0; i < n; i++) {
+            var v = searchMove(list[i], a, beta, empties, i == 0);
+            if(deadline.isExpired()) return 0;
+            if(v > best) {
+                best = v;
+                bestMove = list[i];
+                if(v > a) {
+                    a = v;
+                    if(a >= beta) break;
+                }
+            }
+        }
+
+        if(isProbing) {
+            var bound = best <= alpha ? TranspositionTable.UPPER : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            if(t != 0 && bestMove != TranspositionTable.NO_MOVE) bestMove = symmetry.squares[t][bestMove];
+            table.store(key, empties, bound, best, bestMove);
+        }
+        return best;
+    }
+
+    /**
+     * Searches a state with at most SHALLOW_EMPTIES empty squares by trying to play each empty square,
+     * those in odd regions first.
+     * @param passed True if the opponent passed to get here, so the game is over if the player cannot move either.
+     */
+    private int solveShallow(int alpha, int beta, int empties, boolean passed) {
+        if(empties == 0) {
+            nodes++;
+            return lead(state.getPlayerInTurn());
+        }
+        if(empties == 1) return solveLast(next[head]);
+        nodes++;
+        var s = state;
+        var best = -INFINITY;
+        var a = alpha;
+        for(var odd = 1; odd >= 0; odd--) {
+            for(var sq = next[head]; sq != head; sq = next[sq]) {
+                if(((parity & regions[sq]) != 0 ? 1 : 0) != odd || !s.makeMove(sq)) continue;
+                remove(sq);
+                var v = -solveShallow(-beta, -a, empties - 1, false);
+                restore(sq);
+                s.unmakeMove();
+                if(v > best) {
+                    best = v;
+                    if(v > a) {
+                        a = v;
+                        if(a >= beta) return best;
+                    }
+                }
+            }
+        }
+        if(best > -INFINITY) return best;
+        if(passed) return lead(s.getPlayerInTurn());
+        s.makePass();
+        var v = -solveShallow(-beta, -alpha, empties, true);
+        s.unmakeMove();
+        return v;
+    }
+
+    /**
+     * Returns the value of a state with a single empty square: either the player in turn plays it, or the
+     * opponent does, or nobody can.
+     */
+    private int solveLast(int square) {
+        nodes++;
+        var s = state;
+        var player = s.getPlayerInTurn();
+        if(s.makeMove(square)) {
+            var v = lead(player);
+            s.unmakeMove();
+            return v;
+        }
+        s.makePass();
+        var isPlayed = s.makeMove(square);
+        var v = lead(player);   //After the opponent's move, or at the end of the game if it cannot move either
+        if(isPlayed) s.unmakeMove();
+        s.unmakeMove();
+        return v;
+    }
+
+    /**
+     * Sorts the moves fastest first: the hash move, then by how few moves they leave the opponent, with
+     * moves into odd regions first among equals. Close to the end of the game, only parity is used.
+     */
+    private void order(int[] list, int n, int empties, int hashMove) {
+        var s = state;
+        var score = scores[empties];
+        for(var i = 0; i < n; i++) {
+            var sq = list[i];
+            int v;
+            if(sq == hashMove) v = HASH_MOVE_SCORE;
+            else {
+                v = (parity & regions[sq]) != 0 ? PARITY_BONUS : 0;
+                if(empties >= MOBILITY_MIN_EMPTIES) v -= MOBILITY_WEIGHT * s.getMobilityAfter(sq);
+            }
+            //Insertion sort, best first
+            var j = i;
+            while(j > 0 && score[j - 1] < v) {
+                score[j] = score[j - 1];
+                list[j] = list[j - 1];
+                j--;
+            }
+            score[j] = v;
+            list[j] = sq;
+        }
+    }
+
+    private int lead(int player) {
+        return state.getTokens(player) - state.getTokens(3 - player);
+    }
+
+    private void remove(int square) {
+        next[prev[square]] = next[square];
+        prev[next[square]] = prev[square];
+        parity ^= regions[square];
+    }
+
+    private void restore(int square) {
+        next[prev[square]] = square;
+        prev[next[square]] = square;
+        parity ^= regions[square];
+    }
+
+    HashMap<String, Long> getStatistics() {
+        var map = table == null ? new HashMap<String, Long>() : table.getStatistics();
+        map.put("nodes", nodes);
+        map.put("nanos", nanos);
+        map.put("nodesPerSecond", (long) getNodesPerSecond());
+        return map;
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+/**
+ * Measures how many evaluations per second the evaluators do on positions from random 8x8 games.
+ *
+ * Usage: java EvaluatorBenchmark [seconds per evaluator]
+ */
+public class EvaluatorBenchmark {
+    private static final int POSITIONS = 4096;
+    static volatile long sink; //Keeps the JIT from dropping evaluations whose result is unused
+
+    public static void main(String[] args) {
+        var seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        var evaluators = new LinkedHashMap<String, IEvaluator>();
+        evaluators.put("weight sum", (s, player) -> player == 1 ? s.getWeightSum() : -s.getWeightSum());
+        evaluators.put("mobility", new BitBoardEvaluator(1, 0, 0, 0));
+        evaluators.put("frontier", new BitBoardEvaluator(0, 1, 0, 0));
+        evaluators.put("stability", new BitBoardEvaluator(0, 0, 1, 0));
+        evaluators.put("bitboard (all features)", new BitBoardEvaluator());
+        evaluators.put("patterns", PatternEvaluator.fromPositionalWeights(8, 8));
+
+        for(var entry : evaluators.entrySet()) {
+            var positions = positions(entry.getValue(), new Random(1));
+            var sum = 0L;
+            for(var i = 0; i < 1_000_000; i++) sum += entry.getValue().evaluate(positions.get(i % POSITIONS), 1); //Warm up
+            var evaluations = 0L;
+            var start = System.nanoTime();
+            var end = start + (long) (seconds * 1e9);
+            while(System.nanoTime() < end) {
+                for(var s : positions) sum += entry.getValue().evaluate(s, 1 + (int) (evaluations++ & 1));
+            }
+            var perSecond = evaluations * 1e9 / (System.nanoTime() - start);
+            sink = sum;
+            System.out.printf("%-25s %,15.0f evaluations/s%n", entry.getKey(), perSecond);
+        }
+    }
+
+    //Positions from random games, prepared for the evaluator.
+    private static ArrayList<GameState> positions(IEvaluator evaluator, Random rnd) {
+        var positions = new ArrayList<GameState>();
+        var moves = new int[64];
+        while(positions.size() < POSITIONS) {
+            var s = evaluator.prepare(new GameState(8, 1));
+            while(positions.size() < POSITIONS) {
+                var n = s.expand(moves, 0);
+                if(n == GameState.FINISHED) break;
+                if(n == 0) s.changePlayer();
+                else s.insertToken(moves[rnd.nextInt(n)]);
+                positions.add(new GameState(s));
+            }
+        }
+        return positions;
+    }
+}
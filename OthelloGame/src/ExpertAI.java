@@ -1,8 +1,167 @@
-public class ExpertAI implements IOthelloAI {
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+public class ExpertAI implements IInteractiveAI, AutoCloseable {
+    private static final long MAX_PONDER_MILLIS = 60_000; //Stop pondering eventually if the opponent never moves
+
+    private long millisPerMove = 0; //If > 0, search with iterative deepening for this long instead of to a fixed depth.
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private final EndgameSolver endgame = new EndgameSolver(); //Plays perfectly once few enough squares are empty
+    private Consumer<SearchProgress> progress;
+    private volatile MinMaxWizardWithPruning searching; //The wizard deciding the current move, for moveNow
+    private volatile Deadline moveClock = Deadline.NEVER; //The time of the current move, for moveNow
+
+    //Pondering: searching the state after the expected reply while the opponent thinks, into the wizard's table.
+    private boolean isPondering = false;
+    private MinMaxWizardWithPruning wizard;     //Kept for the game, so every search starts from what the earlier ones found
+    private Thread ponderThread;
+    private Deadline ponderDeadline;
+    private long ponderHash;                    //Hash of the state being pondered
+    private long ponders, ponderHits, ponderNanos, ponderStart;
+
+    public ExpertAI() {}
+
+    /**
+     * @param millisPerMove Time for every move in milliseconds.
+     */
+    public ExpertAI(long millisPerMove) {
+        this.millisPerMove = millisPerMove;
+    }
+
+    /**
+     * Sets the number of empty squares from which on the AI solves the game exactly instead of searching.
+     * 0 turns the solver off.
+     */
+    public void setEndgameThreshold(int empties) {
+        endgame.setThreshold(empties);
+    }
+
+    /**
+     * Sets the number of threads every search uses, pondering included. Defaults to the number of processors.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+        if(wizard != null) wizard.setThreads(this.threads);
+    }
+
+    /**
+     * Turns pondering on or off. While pondering, the AI guesses the opponent's reply to every move it returns
+     * and searches the state after it on a background thread until the next decideMove. If the guess was right
+     * (a ponder hit), that search starts with the table already full and gets deeper in the same time;
+     * otherwise the work is thrown away. The background thread competes with the opponent for the processors.
+     */
+    public void setPondering(boolean isPondering) {
+        if(!isPondering) stopPondering(null);
+        this.isPondering = isPondering;
+    }
 
     @Override
     public Position decideMove(GameState s) {
-        return new MinMaxWizardWithPruning().alphaBetaSearch(s);
+        stopPondering(s);
+        var clock = millisPerMove > 0 ? new Deadline(millisPerMove) : Deadline.unlimited(); //Unlimited is only ended by moveNow
+        moveClock = clock;
+        var wizard = wizard();
+        wizard.setProgressListener(progress);
+        searching = wizard;
+        Position move;
+        try {
+            if(endgame.canSolve(s)) {
+                move = endgame.solve(s, clock);
+                if(move != null) return move;   //Otherwise the time is up: the search below still gives a move
+            }
+            //An expired clock gives the move of depth 1
+            move = millisPerMove > 0 || clock.isExpired() ? wizard.iterativeDeepening(s, clock) : wizard.alphaBetaSearch(s);
+        } finally {
+            searching = null;
+            moveClock = Deadline.NEVER;
+            wizard.setProgressListener(null); //Pondering does not report
+        }
+        if(isPondering) startPondering(s, move);
+        return move;
+    }
+
+    @Override
+    public void setProgressListener(Consumer<SearchProgress> listener) {
+        this.progress = listener;
     }
 
+    @Override
+    public void moveNow() {
+        moveClock.expire();
+        var wizard = searching;
+        if(wizard != null) wizard.stop();
+    }
+
+    private MinMaxWizardWithPruning wizard() {
+        if(wizard == null) {
+            wizard = new MinMaxWizardWithPruning();
+            wizard.setThreads(threads);
+        }
+        return wizard;
+    }
+
+    //Guesses the reply to the move from the table, and starts searching the state after it.
+    private void startPondering(GameState s, Position move) {
+        var predicted = new GameState(s);
+        if(!predicted.insertToken(move)) return;
+        var moves = new int[s.getSize() * s.getSize()];
+        var n = predicted.expand(moves, 0);
+        if(n == GameState.FINISHED) return;
+        if(n == 0) predicted.changePlayer();
+        else {
+            var reply = wizard.hashMove(predicted);
+            predicted.insertToken(reply == TranspositionTable.NO_MOVE ? moves[0] : reply);
+        }
+        if(predicted.expand(moves, 0) <= 0) return; //Nothing for us to decide there
+
+        var deadline = new Deadline(MAX_PONDER_MILLIS);
+        ponderDeadline = deadline;
+        ponderHash = predicted.getHash();
+        ponderStart = System.nanoTime();
+        ponderThread = new Thread(() -> wizard.iterativeDeepening(predicted, deadline), "ExpertAI ponder");
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    //Stops the search of the expected state, and counts a hit if s is that state. s may be null.
+    private void stopPondering(GameState s) {
+        if(ponderThread == null) return;
+        ponderDeadline.expire();
+        try {
+            ponderThread.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ponderNanos += System.nanoTime() - ponderStart;
+        ponderThread = null;
+        if(s == null) return; //Not known if the guess was right
+        ponders++;
+        if(s.getHash() == ponderHash) ponderHits++;
+    }
+
+    /**
+     * Stops pondering. The AI can still be used; the next move starts pondering again.
+     */
+    @Override
+    public void close() {
+        stopPondering(null);
+    }
+
+    /**
+     * Returns the fraction of ponder searches whose expected state was the one the next move was asked for.
+     * Searches stopped by close or setPondering do not count.
+     */
+    public double getPonderHitRate() {
+        return ponders == 0 ? 0 : (double) ponderHits / ponders;
+    }
+
+    //Ponder searches that ended with a move, hits, and milliseconds spent pondering.
+    HashMap<String, Long> getStatistics() {
+        var map = new HashMap<String, Long>();
+        map.put("ponders", ponders);
+        map.put("ponderHits", ponderHits);
+        map.put("ponderMillis", ponderNanos / 1_000_000);
+        return map;
+    }
 }
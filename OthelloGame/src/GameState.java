@@ -1,15 +1,42 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Class to represent the state of a game of Othello.  The state is defined by a 2-dimensional
- * board and whose turn it is. 
+ * board and whose turn it is. The board itself is kept in an IBoard, which is a BitBoard for 8x8 games and
+ * a WideBitBoard for all other sizes.
  * @author Mai Ajspur
  * @version 9.2.2018
  */
 public class GameState {
-	private int[][] board; 		// Possible values: 0 (empty), 1 (black), 2 (white)
+	private IBoard board; 		// The tokens on the board, see IBoard
 	private int currentPlayer; 	// The player who is next to put a token on the board. Value is 1 or 2.
 	private int size;  			// The number of columns = the number of rows on the board
+	private int[][] legal = new int[3][];		// Legal moves per player (index 1 and 2), generated when first asked for
+	private int[] legalCount = {0, -1, -1};	// Number of moves in legal per player, -1 if not generated since the board changed
+	private long moveGenerations;				// Number of times legal moves were generated, to check the cache
+	public static final int FINISHED = -1;		// Returned by expand when neither player can move
+	private long[] flipped;		// Scratch space for the tokens turned by insertToken
+
+	private Zobrist zobrist;	// The keys used for hash
+	private long hash;			// Zobrist hash of the board and the player in turn, kept up to date by every move
+
+	// Evaluation terms, kept up to date by every move like the hash
+	private int[] tokens = new int[3];	// Number of tokens per player (index 1 and 2)
+	private int[] weights;		// Weight per square, see PositionalWeights
+	private int weightSum;		// Sum of the weights of the black tokens minus those of the white tokens
+	private Patterns patterns;	// Patterns whose indices are kept up to date, or null, see setPatterns
+	private int[] patternIndices;	// Index of every pattern instance
+
+	// Undo stack for makeMove/unmakeMove. Entry i is the square played (or PASS), the player who was in turn
+	// and the tokens that were turned, stored as words() longs from undoFlips[i*words()].
+	public static final int PASS = -1;
+	private int[] undoSquares;
+	private int[] undoPlayers;
+	private long[] undoFlips;
+	private long[] undoHashes;
+	private int[] undoWeightSums;
+	private int undoTop;
 	
 	//************ Constructors ****************//
 	/**
@@ -22,13 +49,18 @@ public class GameState {
 	 */
 	public GameState(int size, int playerToStart){ 
 		this.size = size;
-		board = new int[size][size];
+		board = newBoard(size);
+		flipped = new long[board.words()];
 		currentPlayer = playerToStart;
         int half = size/2-1;
-        board[half][half] = 1;
-        board[half+1][half+1] = 1;
-        board[half][half+1] = 2;
-        board[half+1][half] = 2;   
+        board.set(half*size+half, 1);
+        board.set((half+1)*size+half+1, 1);
+        board.set(half*size+half+1, 2);
+        board.set((half+1)*size+half, 2);
+        zobrist = Zobrist.forSize(size);
+        hash = computeHash();
+        weights = PositionalWeights.forSize(size);
+        computeEvaluation();
 	}
 	
 	/**
@@ -40,21 +72,62 @@ public class GameState {
 	 */
 	public GameState(int[][] board, int playerToTakeTurn){ 
 		this.size = board.length;
-		this.board = new int[size][size];
+		this.board = newBoard(size);
+		this.flipped = new long[this.board.words()];
 		for (int i = 0; i < size; i++){
 			for (int j = 0; j < size; j++){
-				this.board[i][j] = board[i][j];
+				if ( board[i][j] != 0 )
+					this.board.set(i*size+j, board[i][j]);
 			}
 		}
 		this.currentPlayer = playerToTakeTurn;
+		this.zobrist = Zobrist.forSize(size);
+		this.hash = computeHash();
+		this.weights = PositionalWeights.forSize(size);
+		computeEvaluation();
+	}
+
+	/**
+	 * Constructs a new game state that equals the given one. Cheaper than going through getBoard().
+	 * Moves made with makeMove on the given state cannot be taken back on the copy.
+	 */
+	public GameState(GameState other){
+		this.size = other.size;
+		this.board = other.board.copy();
+		this.flipped = new long[board.words()];
+		this.currentPlayer = other.currentPlayer;
+		this.zobrist = other.zobrist;
+		this.hash = other.hash;
+		this.weights = other.weights;
+		this.weightSum = other.weightSum;
+		this.tokens = other.tokens.clone();
+		this.patterns = other.patterns;
+		if ( other.patternIndices != null )
+			this.patternIndices = other.patternIndices.clone();
+	}
+
+	/**
+	 * Returns the board implementation best suited for the given size.
+	 */
+	private static IBoard newBoard(int size){
+		if ( size == BitBoard.SIZE )
+			return new BitBoard();
+		return new WideBitBoard(size);
 	}
 	
 	//************ Getter methods *******************//
 	/**
-	 * Returns the array representing the board of this game state
+	 * Returns an array representing the board of this game state. The array is a copy; changing it
+	 * does not change the game state.
 	 */
 	public int[][] getBoard(){
-		return board;
+		int[][] copy = new int[size][size];
+		for (int i = 0; i < size; i++){
+			for (int j = 0; j < size; j++){
+				copy[i][j] = board.get(i*size+j);
+			}
+		}
+		return copy;
 	}
 
 	/**
@@ -64,12 +137,101 @@ public class GameState {
 		return currentPlayer;
 	}
 
+	/**
+	 * Returns the number of columns (and rows) of the board.
+	 */
+	public int getSize(){
+		return size;
+	}
+
+	/**
+	 * Returns the token on the given square (col * size + row): 0 (empty), 1 (black) or 2 (white).
+	 */
+	public int getToken(int square){
+		return board.get(square);
+	}
+
+	/**
+	 * Returns the tokens of the given player (1 or 2) as a mask with bit col * 8 + row set for every token,
+	 * like BitBoard. Only 8x8 boards are kept as such masks.
+	 * @throws UnsupportedOperationException if the board is not 8x8.
+	 */
+	public long getTokenMask(int player){
+		if ( !(board instanceof BitBoard) )
+			throw new UnsupportedOperationException("Token masks are only kept for 8x8 boards");
+		BitBoard bits = (BitBoard) board;
+		return player == 1 ? bits.getBlack() : bits.getWhite();
+	}
+
+	/**
+	 * Returns the number of squares that are legal moves for the current player.
+	 */
+	public int getMobility(){
+		return legalMovesOf(currentPlayer);
+	}
+
+	/**
+	 * Returns the number of legal moves the opponent would have after the current player plays the given
+	 * square (col * size + row), without changing the state. The square should be a legal move.
+	 */
+	public int getMobilityAfter(int square){
+		return board.mobilityAfter(square, currentPlayer);
+	}
+
+	/**
+	 * Returns the Zobrist hash of the board and the player in turn. Equal states of the same size have equal hashes.
+	 */
+	public long getHash(){
+		return hash;
+	}
+
+	/**
+	 * Returns the number of tokens the given player (1 or 2) has on the board. Unlike countTokens, takes constant time.
+	 */
+	public int getTokens(int player){
+		return tokens[player];
+	}
+
+	/**
+	 * Returns the sum of the positional weights (see PositionalWeights) of the black tokens minus those of the
+	 * white tokens. Kept up to date by every move, so it takes constant time.
+	 */
+	public int getWeightSum(){
+		return weightSum;
+	}
+
+	/**
+	 * Returns the patterns whose indices the state keeps up to date, or null if it keeps none.
+	 */
+	public Patterns getPatterns(){
+		return patterns;
+	}
+
+	/**
+	 * Returns the index of every instance of the patterns set with setPatterns, in the order of Patterns.
+	 * The array belongs to the state and must not be changed.
+	 */
+	public int[] getPatternIndices(){
+		return patternIndices;
+	}
+
 	//************* Methods ****************//
+	/**
+	 * Makes the state keep the indices of the given patterns up to date with every move, so that a pattern
+	 * evaluation does not have to read the board. Copies of the state keep them too. Null stops it.
+	 */
+	public void setPatterns(Patterns patterns){
+		this.patterns = patterns;
+		this.patternIndices = patterns == null ? null : patterns.indices(this);
+	}
+
+
 	/**
 	 * Skips the turn of the current player (without) changing the board.
 	 */
 	public void changePlayer(){
 		currentPlayer = currentPlayer == 1 ? 2 : 1;
+		hash ^= zobrist.side;
 	}
 	
 	/**
@@ -77,11 +239,11 @@ public class GameState {
 	 * and false otherwise.
 	 */
 	public boolean isFinished(){
-		if ( !legalMoves().isEmpty() )
+		if ( legalMovesOf(currentPlayer) > 0 )
 			return false;
 		else{ //current player has no legal moves
 			changePlayer();
-			if ( legalMoves().isEmpty() ) //next player also has no legal moves
+			if ( legalMovesOf(currentPlayer) == 0 ) //next player also has no legal moves
 				return true;
 			else{
 				changePlayer();
@@ -95,17 +257,7 @@ public class GameState {
 	 * with the numbers in that order.
 	 */
 	public int[] countTokens(){
-    	int tokens1 = 0;
-    	int tokens2 = 0;
-    	for (int i = 0; i < size; i++){
-    		for (int j = 0; j < size; j++){
-    			if ( board[i][j] == 1 )
-    				tokens1++;
-    			else if ( board[i][j] == 2 )
-    				tokens2++;
-    		}
-    	}
-    	return new int[]{tokens1, tokens2};
+    	return new int[]{tokens[1], tokens[2]};
 	}
 	
 	/**
@@ -116,83 +268,249 @@ public class GameState {
     public boolean insertToken(Position place) { 
     	if ( place.col < 0 || place.row < 0 || place.col >= size || place.row >= size ) //not a position on the board
     		return false;
-    	if ( board[place.col][place.row] != 0 ) // The position is not empty
-    		return false;
+    	return insertToken(place.col*size+place.row);
+    }
 
-    	boolean capturesFound = false;
-    	// Capturing all possible opponents of the current player
-    	for (int deltaX = -1; deltaX <= 1; deltaX++){
-    		for (int deltaY = -1; deltaY <= 1; deltaY++){
-        		int captives = captureInDirection(place, deltaX, deltaY); 
-        		if ( captives > 0){
-        			capturesFound = true;
-        			for ( int i = 1; i <= captives; i++)
-        				board[place.col+deltaX*i][place.row+deltaY*i]=currentPlayer;
-        		}
-        	}		
-    	}
-    	
-    	if ( capturesFound ){
-    		// Place the token at the given place
-    		board[place.col][place.row] = currentPlayer;
+    /**
+     * Like insertToken(Position), for the square col * size + row.
+     */
+    public boolean insertToken(int square){
+    	if ( square < 0 || square >= size*size )
+    		return false;
+    	if ( board.play(square, currentPlayer, flipped, 0) > 0 ){
+    		recordMove(square, flipped, 0);
+    		invalidateMoves();
     		this.changePlayer();
     		return true;
     	}
-    	else {
+    	return false;
+    }
+
+    /**
+     * Makes the move at the given place for the current player like insertToken, but remembers it so that
+     * it can be taken back with unmakeMove. Meant for searches that walk the game tree with a single state.
+     * @return true if the move was legal. Illegal moves are not remembered.
+     */
+    public boolean makeMove(Position place){
+    	if ( place.col < 0 || place.row < 0 || place.col >= size || place.row >= size ) //not a position on the board
+    		return false;
+    	return makeMove(place.col*size+place.row);
+    }
+
+    /**
+     * Makes the move at the given square (col * size + row) for the current player and remembers it so that
+     * it can be taken back with unmakeMove.
+     * @return true if the move was legal. Illegal moves are not remembered.
+     */
+    public boolean makeMove(int square){
+    	if ( square < 0 || square >= size*size )
     		return false;
+    	ensureUndoCapacity();
+    	int words = board.words();
+    	if ( board.play(square, currentPlayer, undoFlips, undoTop*words) == 0 )
+    		return false;
+    	undoSquares[undoTop] = square;
+    	undoPlayers[undoTop] = currentPlayer;
+    	undoHashes[undoTop] = hash;
+    	undoWeightSums[undoTop] = weightSum;
+    	recordMove(square, undoFlips, undoTop*words);
+    	invalidateMoves();
+    	undoTop++;
+    	changePlayer();
+    	return true;
+    }
+
+    /**
+     * Skips the turn of the current player like changePlayer, but remembers it so that it can be taken
+     * back with unmakeMove.
+     */
+    public void makePass(){
+    	ensureUndoCapacity();
+    	undoSquares[undoTop] = PASS;
+    	undoPlayers[undoTop] = currentPlayer;
+    	undoHashes[undoTop] = hash;
+    	undoWeightSums[undoTop] = weightSum;
+    	undoTop++;
+    	changePlayer();
+    }
+
+    /**
+     * Takes back the last move or pass made with makeMove or makePass, restoring the board and the player in turn.
+     * @throws IllegalStateException if there is no such move left to take back.
+     */
+    public void unmakeMove(){
+    	if ( undoTop == 0 )
+    		throw new IllegalStateException("No move made with makeMove or makePass to take back");
+    	undoTop--;
+    	int square = undoSquares[undoTop];
+    	currentPlayer = undoPlayers[undoTop];
+    	hash = undoHashes[undoTop];
+    	weightSum = undoWeightSums[undoTop];
+    	if ( square != PASS ){
+    		int words = board.words();
+    		int turned = 0;
+    		for (int w = 0; w < words; w++)
+    			turned += Long.bitCount(undoFlips[undoTop*words+w]);
+    		tokens[currentPlayer] -= turned + 1;
+    		tokens[3 - currentPlayer] += turned;
+    		if ( patterns != null )
+    			patterns.update(patternIndices, square, currentPlayer, undoFlips, undoTop*words, words, -1);
+    		board.undo(square, currentPlayer, undoFlips, undoTop*words);
+    		invalidateMoves();
     	}
     }
 
     /**
-     * Returns a list of all the positions on the board that constitutes a legal move for the current player.
+     * Returns the number of moves and passes that can currently be taken back with unmakeMove.
      */
-    public ArrayList<Position> legalMoves(){
-    	ArrayList<Position> posPlaces = new ArrayList<Position>();
-    	for (int i = 0; i < this.size; i++){
-    		for (int j = 0; j < this.size; j++){
-    			if ( board[i][j] == 0 ){
-    				posPlaces.add(new Position(i,j));
-    			}
+    public int getUndoDepth(){
+    	return undoTop;
+    }
+
+    /**
+     * Allocates the undo stack on first use and grows it when full. It starts with room for two entries per
+     * square, which covers a full game including passes, so a search never has to grow it.
+     */
+    private void ensureUndoCapacity(){
+    	if ( undoSquares == null ){
+    		int capacity = 2*size*size;
+    		undoSquares = new int[capacity];
+    		undoPlayers = new int[capacity];
+    		undoFlips = new long[capacity*board.words()];
+    		undoHashes = new long[capacity];
+    		undoWeightSums = new int[capacity];
+    	}
+    	else if ( undoTop == undoSquares.length ){
+    		undoSquares = Arrays.copyOf(undoSquares, 2*undoTop);
+    		undoPlayers = Arrays.copyOf(undoPlayers, 2*undoTop);
+    		undoFlips = Arrays.copyOf(undoFlips, 2*undoFlips.length);
+    		undoHashes = Arrays.copyOf(undoHashes, 2*undoTop);
+    		undoWeightSums = Arrays.copyOf(undoWeightSums, 2*undoTop);
+    	}
+    }
+
+    /**
+     * Updates the hash, the token counts, the weight sum and the pattern indices for a token of the current player
+     * put on the square and the tokens turned by it, given as a mask at flips[offset]. The change of player is hashed by changePlayer.
+     */
+    private void recordMove(int square, long[] flips, int offset){
+    	hash ^= zobrist.key(currentPlayer, square);
+    	int turned = 0;
+    	int weight = weights[square];
+    	for (int w = 0; w < flipped.length; w++){
+    		long f = flips[offset+w];
+    		while ( f != 0 ){
+    			int sq = (w << 6) + Long.numberOfTrailingZeros(f);
+    			hash ^= zobrist.flip[sq];
+    			weight += 2*weights[sq];	// The token stops counting for the opponent and starts counting for the player
+    			turned++;
+    			f &= f - 1;
     		}
     	}
+    	weightSum += currentPlayer == 1 ? weight : -weight;
+    	tokens[currentPlayer] += turned + 1;
+    	tokens[3 - currentPlayer] -= turned;
+    	if ( patterns != null )
+    		patterns.update(patternIndices, square, currentPlayer, flips, offset, flipped.length, 1);
+    }
+
+    /**
+     * Computes the token counts and the weight sum from scratch.
+     */
+    private void computeEvaluation(){
+    	tokens[1] = board.count(1);
+    	tokens[2] = board.count(2);
+    	weightSum = 0;
+    	for (int sq = 0; sq < size*size; sq++){
+    		int player = board.get(sq);
+    		if ( player == 1 )
+    			weightSum += weights[sq];
+    		else if ( player == 2 )
+    			weightSum -= weights[sq];
+    	}
+    }
+
+    /**
+     * Computes the hash of the board and the player in turn from scratch.
+     */
+    private long computeHash(){
+    	long h = currentPlayer == 2 ? zobrist.side : 0;
+    	for (int sq = 0; sq < size*size; sq++){
+    		int player = board.get(sq);
+    		if ( player != 0 )
+    			h ^= zobrist.key(player, sq);
+    	}
+    	return h;
+    }
+
+    /**
+     * Writes every square (col * size + row) that is a legal move for the current player into moves from offset
+     * on, each square exactly once and in increasing order, and returns the number of squares written.
+     * Allocates nothing, so searches can call it at every node with a reused array.
+     * @param moves Should have room for at least size * size entries after offset.
+     */
+    public int legalMoves(int[] moves, int offset){
+    	int n = legalMovesOf(currentPlayer);
+    	System.arraycopy(legal[currentPlayer], 0, moves, offset, n);
+    	return n;
+    }
+
+    /**
+     * Everything a search needs to know to expand the state, from one move generation: like legalMoves(int[], int),
+     * but returns FINISHED if neither player can move, and 0 only if the current player has to pass.
+     * Unlike isFinished, never changes the player in turn.
+     */
+    public int expand(int[] moves, int offset){
+    	int n = legalMoves(moves, offset);
+    	if ( n == 0 && legalMovesOf(currentPlayer == 1 ? 2 : 1) == 0 )
+    		return FINISHED;
+    	return n;
+    }
+
+    /**
+     * Returns the number of times legal moves have been generated for this state. Asking again for the
+     * moves of a board that has not changed since does not count.
+     */
+    long getMoveGenerations(){
+    	return moveGenerations;
+    }
+
+    /**
+     * Returns the number of legal moves of the given player, generating them into legal[player] only if the
+     * board has changed since they were last generated.
+     */
+    private int legalMovesOf(int player){
+    	if ( legalCount[player] < 0 ){
+    		if ( legal[player] == null )
+    			legal[player] = new int[size*size];
+    		legalCount[player] = board.legalMoves(player, legal[player], 0);
+    		moveGenerations++;
+    	}
+    	return legalCount[player];
+    }
+
+    private void invalidateMoves(){
+    	legalCount[1] = -1;
+    	legalCount[2] = -1;
+    }
+
+    /**
+     * Returns a list of all the positions on the board that constitutes a legal move for the current player.
+     * A position is in the list once for every direction in which it captures tokens.
+     * Kept for the GUI and the simple AIs; searches should use legalMoves(int[], int).
+     */
+    public ArrayList<Position> legalMoves(){
     	ArrayList<Position> legalPlaces = new ArrayList<Position>();
-    	for (Position p: posPlaces){
-    		for (int deltaX = -1; deltaX <= 1; deltaX++){
-    			for (int deltaY = -1; deltaY <= 1; deltaY++){
-    				if ( captureInDirection(p, deltaX, deltaY) > 0 ){
-    	    			legalPlaces.add(p);
-    				}
-    			}
+    	int n = legalMovesOf(currentPlayer);
+    	int[] moves = legal[currentPlayer];
+    	for (int i = 0; i < n; i++){
+    		Position p = new Position(moves[i] / size, moves[i] % size);
+    		int directions = board.captureDirections(moves[i], currentPlayer);
+    		for (int d = 0; d < directions; d++){
+    			legalPlaces.add(p);
     		}
     	}
     	return legalPlaces;
     }	
-    
-    /**
-     * Checks how many tokens of the opponent the player can capture in the direction given by deltaX and deltaY
-     * if the player puts a token at the given position.
-     * @param p A position on the board
-     * @param deltaX The step to be taken in the x-direction. Should be -1 (left), 0 (none), or 1 (right).
-     * @param deltaY The step to be taken in the delta direction. Should be -1 (up), 0 (none), or 1 (down).
-     */
-    private int captureInDirection(Position p, int deltaX, int deltaY){
-    	int opponent = (currentPlayer == 1 ? 2 : 1); 
-        
-    	int captured = 0;
-    	int cc = p.col;
-    	int rr = p.row;
-        while ( 0 <= cc+deltaX && cc+deltaX < size && 0 <= rr+deltaY && rr+deltaY < size 
-    			&& board[cc+deltaX][rr+deltaY] == opponent ){ 
-        	cc = cc + deltaX;
-        	rr = rr + deltaY;
-        	captured++;
-        }
-        if ( 0 <= cc+deltaX && cc+deltaX < size  && 0 <= rr+deltaY && rr+deltaY < size 
-    			&& board[cc+deltaX][rr+deltaY] == currentPlayer && captured > 0 ){
-        	return captured;
-        }
-        else
-        	return 0;
-    }
 
 }
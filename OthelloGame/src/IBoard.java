@@ -0,0 +1,75 @@
+/**
+ * Interface for the storage behind a GameState. A board knows where the tokens are and how to
+ * generate and play moves, but not whose turn it is.
+ *
+ * Squares are addressed by a single index, square = col * size + row, so that iterating the squares
+ * in increasing order visits the board in the same order as the nested col/row loops of GameState.
+ */
+public interface IBoard {
+
+    /**
+     * Returns the number of columns (and rows) of the board.
+     */
+    int getSize();
+
+    /**
+     * Returns the token at the given square: 0 (empty), 1 (black) or 2 (white).
+     */
+    int get(int square);
+
+    /**
+     * Puts the token of the given player on the square, or empties it if player is 0. No tokens are turned.
+     */
+    void set(int square, int player);
+
+    /**
+     * Returns the number of tokens the given player has on the board.
+     */
+    int count(int player);
+
+    /**
+     * Writes every square that is a legal move for the given player into moves from offset on, each square
+     * exactly once and in increasing order, and returns the number of squares written.
+     * @param moves Should have room for at least size * size entries after offset.
+     */
+    int legalMoves(int player, int[] moves, int offset);
+
+    /**
+     * Returns in how many of the 8 directions the given player would capture tokens by playing the square.
+     */
+    int captureDirections(int square, int player);
+
+    /**
+     * Returns the number of legal moves the opponent of player would have after player puts a token on the
+     * square. The square should be a legal move for player. The board is unchanged afterwards.
+     */
+    int mobilityAfter(int square, int player);
+
+    /**
+     * Puts a token of the given player on the square and turns the captured tokens of the opponent.
+     * @return The number of tokens turned. If it is 0 the move was not legal and the board is unchanged.
+     */
+    int play(int square, int player);
+
+    /**
+     * Like play(square, player), but also writes the turned tokens as a mask of words() longs into flipped,
+     * starting at offset, so that the move can be taken back with undo. Nothing is written if flipped is null.
+     */
+    int play(int square, int player, long[] flipped, int offset);
+
+    /**
+     * Takes back a move made with play(square, player, flipped, offset): the token on the square is removed
+     * and the tokens in the mask at flipped[offset] are turned back to the opponent of player.
+     */
+    void undo(int square, int player, long[] flipped, int offset);
+
+    /**
+     * Returns the number of longs in a mask of squares of this board.
+     */
+    int words();
+
+    /**
+     * Returns an independent copy of this board.
+     */
+    IBoard copy();
+}
@@ -0,0 +1,19 @@
+/**
+ * Evaluates the states at the leaves of a search, e.g. for MinMaxWizardWithPruning.setEvaluator.
+ */
+public interface IEvaluator {
+
+    /**
+     * Returns the value of the state for the given player: higher is better for the player, and the value
+     * for the opponent is its negation. May be called from several search threads at once.
+     */
+    int evaluate(GameState s, int player);
+
+    /**
+     * Called with the state a search starts from. Returns the state to search instead, e.g. a copy of it with
+     * incremental data the evaluator needs. The default returns the state itself.
+     */
+    default GameState prepare(GameState s) {
+        return s;
+    }
+}
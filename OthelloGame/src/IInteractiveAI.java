@@ -0,0 +1,19 @@
+import java.util.function.Consumer;
+
+/**
+ * An AI whose search can be followed while it runs and cut short, e.g. by the GUI, which runs decideMove
+ * on another thread.
+ */
+public interface IInteractiveAI extends IOthelloAI {
+    /**
+     * Sets what is told about the progress of decideMove: called on the searching thread every time the search
+     * finds a new best move or completes a depth. Null for nothing.
+     */
+    void setProgressListener(Consumer<SearchProgress> listener);
+
+    /**
+     * Makes a running decideMove return as soon as possible with the best move found so far. Safe to call from
+     * any thread, and does nothing if no search is running.
+     */
+    void moveNow();
+}
@@ -0,0 +1,424 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Monte Carlo tree search (UCT): instead of evaluating positions, the AI plays random games from them and
+ * grows a tree towards the moves that win most often. It needs no evaluation function, so it plays every
+ * board size, and it plays the move of the root that was tried the most when the time is up.
+ *
+ * An iteration walks down the tree choosing the child with the best upper confidence bound (UCB1), adds the
+ * children of the node it stops at, plays a random game from there and adds the result to every node on the
+ * way. Several threads grow the same tree at once. The statistics of a node are one atomic word, the visits
+ * and the points won, so threads update them without locks. A thread counts its visit when it walks through
+ * a node and the points only at the end of its game (virtual loss), so the threads spread over the tree
+ * instead of all following the same path. Nodes live in arrays allocated once per AI, not as objects; when
+ * the arrays are full the tree stops growing and the iterations go on from its leaves.
+ *
+ * Random games on 8x8 boards are played on two token masks, see BitBoard; on other sizes on a GameState.
+ */
+public class MctsAI implements IInteractiveAI, AutoCloseable {
+    public static final long DEFAULT_MILLIS = 1000;
+    public static final int DEFAULT_NODES = 1 << 20;    //About 20 bytes each
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final long REPORT_NANOS = 100_000_000;
+
+    //Node arrays. Node 0 is the root, and the children of a node are stored next to each other.
+    private static final int UNEXPANDED = -1, EXPANDING = -2, FULL = -3;
+    private static final long VISIT = 1L << 32;     //A stats word holds the visits in bits 32-63 and the points in 0-31
+    private static final int WIN = 2, DRAW = 1;     //Points of a game for the player who moved into the node
+    private final int capacity;
+    private final int[] squares;                    //The move into the node, or GameState.PASS
+    private final byte[] movers;                    //The player who made that move
+    private final int[] childCounts;                //0 if the game is over at the node; valid once firstChild is set
+    private final AtomicIntegerArray firstChild;    //Index of the first child, UNEXPANDED, EXPANDING or FULL
+    private final AtomicLongArray stats;
+    private final AtomicInteger used = new AtomicInteger();     //Never more than capacity
+
+    private final long millisPerMove;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private ExecutorService pool;                   //Null until decideMove is first called with several threads
+    private volatile Deadline deadline = Deadline.NEVER;
+    private Consumer<SearchProgress> progress;
+
+    //Statistics of the last decideMove
+    private long playouts, nanos;
+    private int maxDepth;
+
+    public MctsAI() {
+        this(DEFAULT_MILLIS);
+    }
+
+    /**
+     * @param millisPerMove Time for every move in milliseconds.
+     */
+    public MctsAI(long millisPerMove) {
+        this(millisPerMove, DEFAULT_NODES);
+    }
+
+    /**
+     * @param nodes The most nodes the tree can have.
+     */
+    public MctsAI(long millisPerMove, int nodes) {
+        this.millisPerMove = millisPerMove;
+        capacity = Math.max(nodes, 2);
+        squares = new int[capacity];
+        movers = new byte[capacity];
+        childCounts = new int[capacity];
+        firstChild = new AtomicIntegerArray(capacity);
+        stats = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * Sets the number of threads to search with. Defaults to the number of processors.
+     */
+    public void setThreads(int threads) {
+        close(); //The pool has the old number of threads
+        this.threads = Math.max(1, threads);
+    }
+
+    @Override
+    public Position decideMove(GameState s) {
+        var start = System.nanoTime();
+        var clock = new Deadline(millisPerMove);
+        deadline = clock;
+        playouts = 0;
+        try {
+            var root = new GameState(s);
+            used.set(1);
+            movers[0] = 0;
+            firstChild.set(0, UNEXPANDED);
+            stats.set(0, 0);
+            maxDepth = 0;
+            var board = newBoard(root);
+            board.reset(root);
+            var list = new int[root.getSize() * root.getSize()];
+            expand(0, board, list);
+            var first = firstChild.get(0);
+            if(first == FULL) return position(root, list[0]);   //Too few nodes for even the root's children
+            if(childCounts[0] == 0 || squares[first] == GameState.PASS) return new Position(-1, -1);  //No legal moves
+            if(childCounts[0] == 1) return position(root, squares[first]);
+
+            var tasks = new ArrayList<Callable<Long>>();
+            for(var t = 0; t < threads; t++) {
+                var isReporting = t == 0;
+                tasks.add(() -> search(root, clock, isReporting, start));
+            }
+            if(threads == 1) playouts = search(root, clock, true, start);
+            else {
+                for(var future : pool().invokeAll(tasks)) playouts += future.get();
+            }
+            return position(root, squares[bestChild()]);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return position(s, squares[bestChild()]);
+        } catch(ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            deadline = Deadline.NEVER;
+            nanos = System.nanoTime() - start;
+        }
+    }
+
+    private ExecutorService pool() {
+        if(pool == null) {
+            pool = Executors.newFixedThreadPool(threads, r -> {
+                var thread = new Thread(r, "MctsAI search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return pool;
+    }
+
+    //Runs iterations until the time is up, and returns how many.
+    private long search(GameState root, Deadline clock, boolean isReporting, long start) {
+        var board = newBoard(root);
+        var list = new int[root.getSize() * root.getSize()];
+        var path = new int[root.getSize() * root.getSize() * 2 + 2];   //Passes make a path longer than the moves
+        var rnd = ThreadLocalRandom.current();
+        var lastReport = start;
+        var count = 0L;
+        while(!clock.isExpired()) {
+            iterate(root, board, list, path, rnd);
+            count++;
+            if(clock.remainingMillis() == 0) clock.expire(); //An iteration is slow enough to read the clock after every one
+            if(isReporting && progress != null && (count & 255) == 0 && System.nanoTime() - lastReport > REPORT_NANOS) {
+                lastReport = System.nanoTime();
+                report(root, count * threads, lastReport - start);
+            }
+        }
+        return count;
+    }
+
+    //One iteration: down the tree, one node added, a random game, and the result back up the path.
+    private void iterate(GameState root, Board board, int[] list, int[] path, Random rnd) {
+        board.reset(root);
+        var node = 0;
+        var depth = 0;
+        path[0] = 0;
+        stats.getAndAdd(0, VISIT);
+        while(true) {
+            var first = firstChild.get(node);
+            if(first == UNEXPANDED && firstChild.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+                first = expand(node, board, list);
+            }
+            if(first < 0 || childCounts[node] == 0) break;    //Being expanded by another thread, the pool is full, or the game is over
+            node = select(node, first, childCounts[node]);
+            board.play(squares[node]);
+            path[++depth] = node;
+            if(visits(stats.getAndAdd(node, VISIT)) == 0) break; //A new leaf; it gets its children on its next visit
+        }
+        if(depth > maxDepth) maxDepth = depth;  //A lost update only makes the reported depth a little low
+
+        var winner = board.playOut(list, rnd);
+        for(var i = 0; i <= depth; i++) {
+            var mover = movers[path[i]];
+            if(mover == winner) stats.getAndAdd(path[i], WIN);
+            else if(winner == 0) stats.getAndAdd(path[i], DRAW);
+        }
+    }
+
+    //Adds the children of the node at the board's state, which the caller has marked EXPANDING. Returns the
+    //index of the first child, or FULL if the pool has no room for them, in which case the node stays a leaf
+    //and is never tried again.
+    private int expand(int node, Board board, int[] list) {
+        var n = board.moves(list);
+        var count = n == GameState.FINISHED ? 0 : Math.max(n, 1);
+        if(n == 0) list[0] = GameState.PASS;
+        int first;
+        do {
+            first = used.get();
+            if(count > capacity - first) {
+                firstChild.set(node, FULL);
+                return FULL;
+            }
+        } while(!used.compareAndSet(first, first + count));
+        var player = (byte) board.player();
+        for(var i = 0; i < count; i++) {
+            squares[first + i] = list[i];
+            movers[first + i] = player;
+            childCounts[first + i] = 0;
+            stats.set(first + i, 0);
+            firstChild.set(first + i, UNEXPANDED);
+        }
+        childCounts[node] = count;
+        firstChild.set(node, first);    //Publishes the children
+        return first;
+    }
+
+    //The child with the highest upper confidence bound; children nobody has visited yet come first.
+    private int select(int node, int first, int count) {
+        var logVisits = Math.log(Math.max(1, visits(stats.get(node))));
+        var best = first;
+        var bestValue = Double.NEGATIVE_INFINITY;
+        for(var i = first; i < first + count; i++) {
+            var word = stats.get(i);
+            var n = visits(word);
+            if(n == 0) return i;
+            var value = points(word) / (2.0 * n) + EXPLORATION * Math.sqrt(logVisits / n);
+            if(value > bestValue) {
+                bestValue = value;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    //The child of the root visited the most.
+    private int bestChild() {
+        var first = firstChild.get(0);
+        var best = first;
+        for(var i = first; i < first + childCounts[0]; i++) {
+            if(visits(stats.get(i)) > visits(stats.get(best))) best = i;
+        }
+        return best;
+    }
+
+    private static long visits(long word) {
+        return word >>> 32;
+    }
+
+    private static long points(long word) {
+        return word & 0xFFFFFFFFL;
+    }
+
+    private void report(GameState root, long playouts, long nanos) {
+        var best = bestChild();
+        var word = stats.get(best);
+        var winRate = visits(word) == 0 ? 0 : (int) (50 * points(word) / visits(word));
+        progress.accept(new SearchProgress(maxDepth, position(root, squares[best]), winRate, playouts, nanos));
+    }
+
+    private static Position position(GameState s, int square) {
+        return new Position(square / s.getSize(), square % s.getSize());
+    }
+
+    /**
+     * Reports the deepest path, the move visited the most with its percentage of points won, and the number of
+     * random games, about every 100 ms.
+     */
+    @Override
+    public void setProgressListener(Consumer<SearchProgress> listener) {
+        this.progress = listener;
+    }
+
+    @Override
+    public void moveNow() {
+        deadline.expire();
+    }
+
+    /**
+     * Stops the search threads. The AI can still be used; they are started again when needed.
+     */
+    @Override
+    public void close() {
+        if(pool != null) pool.shutdownNow();
+        pool = null;
+    }
+
+    /**
+     * Returns the number of random games played per second during the last decideMove, by all threads.
+     */
+    public double getPlayoutsPerSecond() {
+        return nanos == 0 ? 0 : playouts * 1e9 / nanos;
+    }
+
+    //Random games, tree nodes, the deepest path and the time of the last decideMove.
+    HashMap<String, Long> getStatistics() {
+        var map = new HashMap<String, Long>();
+        map.put("playouts", playouts);
+        map.put("nodes", (long) used.get());
+        map.put("maxDepth", (long) maxDepth);
+        map.put("nanos", nanos);
+        map.put("playoutsPerSecond", (long) getPlayoutsPerSecond());
+        return map;
+    }
+
+    private static Board newBoard(GameState s) {
+        return s.getSize() == BitBoard.SIZE ? new MaskBoard() : new StateBoard();
+    }
+
+    /**
+     * The state of one iteration, from the root down the tree and on to the end of the game. One per thread.
+     */
+    private interface Board {
+        void reset(GameState root);
+
+        int player();
+
+        //Writes the legal squares into list and returns how many, 0 to pass, or GameState.FINISHED.
+        int moves(int[] list);
+
+        //Plays the square, or passes for GameState.PASS.
+        void play(int square);
+
+        //Plays random moves until the game is over, and returns the winner: 1, 2, or 0 for a draw.
+        int playOut(int[] list, Random rnd);
+    }
+
+    //8x8 boards as the masks of the player in turn and the opponent.
+    private static final class MaskBoard implements Board {
+        private long own, opp;
+        private int player;
+
+        public void reset(GameState root) {
+            player = root.getPlayerInTurn();
+            own = root.getTokenMask(player);
+            opp = root.getTokenMask(3 - player);
+        }
+
+        public int player() {
+            return player;
+        }
+
+        public int moves(int[] list) {
+            var moves = BitBoard.moveMask(own, opp);
+            if(moves == 0) return BitBoard.moveMask(opp, own) == 0 ? GameState.FINISHED : 0;
+            var n = 0;
+            for(; moves != 0; moves &= moves - 1) list[n++] = Long.numberOfTrailingZeros(moves);
+            return n;
+        }
+
+        public void play(int square) {
+            if(square != GameState.PASS) {
+                var move = 1L << square;
+                var flips = BitBoard.flips(move, own, opp);
+                own |= flips | move;
+                opp &= ~flips;
+            }
+            swap();
+        }
+
+        public int playOut(int[] list, Random rnd) {
+            var passed = false;
+            while(true) {
+                var moves = BitBoard.moveMask(own, opp);
+                if(moves == 0) {
+                    if(passed) break;
+                    passed = true;
+                    swap();
+                    continue;
+                }
+                passed = false;
+                for(var k = rnd.nextInt(Long.bitCount(moves)); k > 0; k--) moves &= moves - 1;
+                var move = moves & -moves;
+                var flips = BitBoard.flips(move, own, opp);
+                own |= flips | move;
+                opp &= ~flips;
+                swap();
+            }
+            var lead = Long.bitCount(own) - Long.bitCount(opp);
+            return lead == 0 ? 0 : lead > 0 ? player : 3 - player;
+        }
+
+        private void swap() {
+            var t = own;
+            own = opp;
+            opp = t;
+            player = 3 - player;
+        }
+    }
+
+    //Other sizes, on a copy of the root.
+    private static final class StateBoard implements Board {
+        private GameState s;
+
+        public void reset(GameState root) {
+            s = new GameState(root);
+        }
+
+        public int player() {
+            return s.getPlayerInTurn();
+        }
+
+        public int moves(int[] list) {
+            return s.expand(list, 0);
+        }
+
+        public void play(int square) {
+            if(square == GameState.PASS) s.changePlayer();
+            else s.insertToken(square);
+        }
+
+        public int playOut(int[] list, Random rnd) {
+            while(true) {
+                var n = s.expand(list, 0);
+                if(n == GameState.FINISHED) break;
+                if(n == 0) s.changePlayer();
+                else s.insertToken(list[rnd.nextInt(n)]);
+            }
+            var lead = s.getTokens(1) - s.getTokens(2);
+            return lead == 0 ? 0 : lead > 0 ? 1 : 2;
+        }
+    }
+}
@@ -1,10 +1,10 @@
+import java.io.PrintStream;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class MinMaxWizard implements IMinMaxWizard {
     //Default settings based on tests.
@@ -14,20 +14,21 @@ public class MinMaxWizard implements IMinMaxWizard {
     private boolean isDebugging      = false;   //Will write all actions into log file.
     private boolean isDiagnosticMode = false;
 
-    private boolean isStatisticsMode = false;
-    private long recursionCalls      = 0;
-    private long terminalTestCalls   = 0;
-    private long utilityCalls        = 0;
-    private long actionCalls         = 0;
-    private long resultCalls         = 0;
+    private boolean isStatisticsMode = false;   //Counts the calls of every WizardAction.
 
     //Enum to describe every action made by the wizard.
     public enum WizardAction {
         ACTION, RESULT, UTILITY, TERMINAL, MIN_VALUE, MAX_VALUE, MIN_MAX_DECISION;
     }
 
-    //Will record the time between every WizardAction if diagnostic mode is on.
-    private HashMap<WizardAction, ArrayList<Long>> eventTimeLog = new HashMap<>();
+    //Call counts, and the time of every WizardAction if diagnostic mode is on.
+    private final WizardStatistics statistics = new WizardStatistics();
+
+    //Records the searched nodes if set. Unlike isDebugging, costs little enough to leave on for whole games.
+    private SearchTrace trace;
+    private boolean isTracing;          //If the current search is recorded
+    private long[] traceIds;            //Id of the node being searched at every depth, the search itself at 0
+    private int tracedMove;             //The last move made by result, which is the move into the next node
 
 
     //Constructor choices
@@ -54,6 +55,10 @@ public class MinMaxWizard implements IMinMaxWizard {
     }
 
     public Position minMaxDecision(GameState s) {
+        if(isStatisticsMode) statistics.count(WizardAction.MIN_MAX_DECISION);
+        var timed = isDiagnosticMode && statistics.sample();
+        var start = timed ? System.nanoTime() : 0;
+        if(trace != null) startTrace(s);
         Position pos = new Position(-1,-1);
         var v = -2;
         for(var a : actions(s)) {
@@ -66,49 +71,54 @@ public class MinMaxWizard implements IMinMaxWizard {
             //System.out.println("v: " + rs);
         }
        // System.out.println("Best action: " + pos.toString());
+        isTracing = false;
+        if(timed) statistics.time(WizardAction.MIN_MAX_DECISION, System.nanoTime() - start);
         return pos;
     }
 
     public int maxValue(GameState s, int depth) {
+        if(isStatisticsMode) statistics.count(WizardAction.MAX_VALUE);
+        var timed = isDiagnosticMode && statistics.sample();
+        var start = timed ? System.nanoTime() : 0;
 
-        if(isStatisticsMode) recursionCalls++;
-        var start = System.currentTimeMillis();
-
-        if(terminalTest(s, depth)) return utility(s);
+        var move = tracedMove;
+        var id = isTracing ? trace.newNode() : 0;
+        if(terminalTest(s, depth)) return traced(id, depth, move, s, utility(s));
+        if(isTracing) traceIds[depth + 1] = id;
 
         var v = -1;
         var d = depth + 1;
         for(var a : actions(s)) v = Math.max(v, minValue(result(s, a), d));
 
-        if(isDiagnosticMode) {
-            var end = System.currentTimeMillis();
-            addToEventLog(WizardAction.MAX_VALUE, (end - start));
-        }
+        if(timed) statistics.time(WizardAction.MAX_VALUE, System.nanoTime() - start);
 
-        return v;
+        return traced(id, depth, move, s, v);
     }
 
     public int minValue(GameState s, int depth) {
-        if(isStatisticsMode) recursionCalls++;
-        var start = System.currentTimeMillis();
+        if(isStatisticsMode) statistics.count(WizardAction.MIN_VALUE);
+        var timed = isDiagnosticMode && statistics.sample();
+        var start = timed ? System.nanoTime() : 0;
 
-        if(terminalTest(s, depth)) return utility(s);
+        var move = tracedMove;
+        var id = isTracing ? trace.newNode() : 0;
+        if(terminalTest(s, depth)) return traced(id, depth, move, s, utility(s));
+        if(isTracing) traceIds[depth + 1] = id;
 
         var v = 1;
         var d = depth + 1;
         for(var a : actions(s)) v = Math.min(v, maxValue(result(s, a), d));
 
-        if(isDiagnosticMode) {
-            var end = System.currentTimeMillis();
-            addToEventLog(WizardAction.MIN_VALUE, (end - start));
-        }
-        return v;
+        if(timed) statistics.time(WizardAction.MIN_VALUE, System.nanoTime() - start);
+        return traced(id, depth, move, s, v);
     }
 
     public GameState result(GameState s, Position p) {
-        if(isStatisticsMode) resultCalls++;
-        var start = System.currentTimeMillis();
-        var tmp = new GameState(s.getBoard(), s.getPlayerInTurn());
+        if(isStatisticsMode) statistics.count(WizardAction.RESULT);
+        var timed = isDiagnosticMode && statistics.sample();
+        var start = timed ? System.nanoTime() : 0;
+        var tmp = new GameState(s);
+        if(isTracing) tracedMove = p.col * s.getSize() + p.row;
 
         if(isDebugging) {
             System.out.println();
@@ -143,51 +153,45 @@ public class MinMaxWizard implements IMinMaxWizard {
             System.out.println("---------------------------------------------------------------");
             System.out.println();
         }
-        if(isDiagnosticMode) {
-            var end = System.currentTimeMillis();
-            addToEventLog(WizardAction.RESULT, (end - start));
-        }
+        if(timed) statistics.time(WizardAction.RESULT, System.nanoTime() - start);
         return tmp;
     }
 
     public List<Position> actions(GameState s) {
-        if(isStatisticsMode) actionCalls++;
+        if(isStatisticsMode) statistics.count(WizardAction.ACTION);
 
-        var start = System.currentTimeMillis();
+        var timed = isDiagnosticMode && statistics.sample();
+        var start = timed ? System.nanoTime() : 0;
 
-        var actions = s.legalMoves().stream().distinct().collect(Collectors.toList());
-        if(isDiagnosticMode) {
-            var end = System.currentTimeMillis();
-            addToEventLog(WizardAction.ACTION, (end - start));
-        }
+        var squares = new int[s.getSize() * s.getSize()];
+        var n = s.legalMoves(squares, 0);
+        var actions = new ArrayList<Position>(n);
+        for(var i = 0; i < n; i++) actions.add(new Position(squares[i] / s.getSize(), squares[i] % s.getSize()));
+        if(timed) statistics.time(WizardAction.ACTION, System.nanoTime() - start);
         return actions;
     }
 
     public boolean terminalTest(GameState s, int depth) {
-        if(isStatisticsMode) terminalTestCalls++;
-        var start = System.currentTimeMillis();
+        if(isStatisticsMode) statistics.count(WizardAction.TERMINAL);
+        var timed = isDiagnosticMode && statistics.sample();
+        var start = timed ? System.nanoTime() : 0;
 
         var rs = s.isFinished();
 
-        if(isDiagnosticMode) {
-            var end = System.currentTimeMillis();
-            addToEventLog(WizardAction.TERMINAL, (end - start));
-        }
+        if(timed) statistics.time(WizardAction.TERMINAL, System.nanoTime() - start);
 
         return rs || (depth >= maxDepth);
     }
 
     public int utility(GameState s) {
-        if(isStatisticsMode) utilityCalls++;
-        var start = System.currentTimeMillis();
+        if(isStatisticsMode) statistics.count(WizardAction.UTILITY);
+        var timed = isDiagnosticMode && statistics.sample();
+        var start = timed ? System.nanoTime() : 0;
 
         var t = s.countTokens();
         var rs = s.getPlayerInTurn() == 1 ? Integer.compare(t[0], t[1]) : Integer.compare(t[1], t[0]);
 
-        if(isDiagnosticMode) {
-            var end = System.currentTimeMillis();
-            addToEventLog(WizardAction.UTILITY, (end - start));
-        }
+        if(timed) statistics.time(WizardAction.UTILITY, System.nanoTime() - start);
 
         return rs;
     }
@@ -196,8 +200,33 @@ public class MinMaxWizard implements IMinMaxWizard {
 
     //Helper tools
 
-    //Todo - Prettify code if needed. Right now it's just for writing a log file.
+    /**
+     * Records the nodes of the searches to the trace from now on, or stops recording if it is null.
+     */
+    void setTrace(SearchTrace trace) {
+        this.trace = trace;
+    }
+
+    private void startTrace(GameState s) {
+        var id = trace.startSearch(s);
+        isTracing = id >= 0;
+        if(!isTracing) return;
+        traceIds = new long[maxDepth + 2];
+        traceIds[0] = id;
+    }
+
+    //Records the node, which has no window as minMax does not prune: the window is the whole range of utility.
+    private int traced(long id, int depth, int move, GameState s, int score) {
+        if(isTracing) trace.node(id, traceIds[depth], depth, move, s.getPlayerInTurn(), -1, 1, score);
+        return score;
+    }
+
     void printBoard(int[][] board) {
+        printBoard(System.out, board);
+    }
+
+    //Todo - Prettify code if needed. Right now it's just for writing a log file.
+    void printBoard(PrintStream out, int[][] board) {
         var sb = new StringBuilder();
         sb.append("    ");
         for(var j = 0; j < board.length; j++) {
@@ -234,7 +263,7 @@ public class MinMaxWizard implements IMinMaxWizard {
         }
         sb.append("+");
 
-        System.out.println(sb.toString());
+        out.println(sb.toString());
     }
 
     String legalMovesToString(GameState s) {
@@ -250,24 +279,22 @@ public class MinMaxWizard implements IMinMaxWizard {
         System.out.println(MessageFormat.format("{0} : {1}", t, title));
     }
 
-    void addToEventLog(WizardAction action, long elapsed) {
-        var list = eventTimeLog.get(action);
-        if(list == null) list = new ArrayList<>();
-        list.add(elapsed);
-        eventTimeLog.put(action, list);
-    }
-
-    HashMap<WizardAction, ArrayList<Long>> getEventTimeLog() {
-        return eventTimeLog;
+    /**
+     * Returns the call counts (if statistics mode is on) and times (if diagnostic mode is on) of every WizardAction.
+     * Take a snapshot to read them, and reset them between measurements.
+     */
+    WizardStatistics getDiagnostics() {
+        return statistics;
     }
 
     HashMap<String, Long> getStatistics() {
+        var snapshot = statistics.snapshot();
         var map = new HashMap<String, Long>();
-        map.put("utilityCalls", utilityCalls);
-        map.put("terminalTestCalls", terminalTestCalls);
-        map.put("actionCalls", actionCalls);
-        map.put("recursionCalls", recursionCalls);
-        map.put("resultCalls", resultCalls);
+        map.put("utilityCalls", snapshot.getCalls(WizardAction.UTILITY));
+        map.put("terminalTestCalls", snapshot.getCalls(WizardAction.TERMINAL));
+        map.put("actionCalls", snapshot.getCalls(WizardAction.ACTION));
+        map.put("recursionCalls", snapshot.getCalls(WizardAction.MAX_VALUE) + snapshot.getCalls(WizardAction.MIN_VALUE));
+        map.put("resultCalls", snapshot.getCalls(WizardAction.RESULT));
         return map;
     }
 }
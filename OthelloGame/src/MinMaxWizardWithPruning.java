@@ -1,100 +1,566 @@
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class MinMaxWizardWithPruning {
     //Default settings based on tests.
     private int MAX_DEPTH = 5; //7 defeats DumAI. 8 is very unbeatable. ranging between 1 - 17 seconds (avg 5s)
+    private boolean isInPlace = false; //Walk the tree with makeMove/unmakeMove on one state instead of copying it per node.
 
-    //Notes for heuristics.
+    //Transposition table shared by all search threads. Null if disabled with a table size of 0.
+    static final int DEFAULT_TABLE_SIZE = 1 << 18; //Entries; 16 bytes each.
+    private TranspositionTable table;
 
-    private int[] heuristicWeights = new int[] //Todo - Adjust to become killer heuristics. Currently they good.
-            {   6, -3, 2, 2, 2, 2, -3, 6,
-                -3, -4, -1, -1, -1, -1, -4, -3,
-                2, -1, 1, 0, 0, 1, -1, 2,
-                2, -1, 0, 1, 1, 0, -1, 2,
-                2, -1, 0, 1, 1, 0, -1, 2,
-                2, -1, 1, 0, 0, 1, -1, 2,
-                -3, -4, -1, -1, -1, -1, -4, -3,
-                6, -3, 2, 2, 2, 2, -3, 6
-            };
+    //Symmetric keys: the table is keyed on the canonical state (see Symmetry) and holds its moves, so that mirrored
+    //and rotated states share their entries.
+    private boolean isSymmetric = false;
+    private Symmetry symmetry;
 
-    MinMaxWizardWithPruning() { }
+    //Iterative deepening. searchDepth is the depth of the current iteration, MAX_DEPTH when searching to a fixed depth.
+    private int searchDepth;
+    private int completedDepth;
+    private volatile Deadline deadline = Deadline.NEVER; //Volatile so that stop can end it from another thread
+    private volatile boolean isStopRequested;
+
+    //Move ordering. The root moves are ordered with the best move of the previous iteration first.
+    private boolean isOrdering = true;
+    private MoveOrdering ordering = new MoveOrdering();
+    private int previousBest = TranspositionTable.NO_MOVE;
+
+    //Reuse between searches. A wizard kept for a whole game starts every search with the table, the history and the
+    //principal variation of the earlier ones, aged rather than cleared. rootTokens is the token count at the last root.
+    private int rootTokens = -1;
+    private final LongAdder nodes = new LongAdder(); //negamax calls
+
+    //Principal variation search. Scores are from the view of the player in turn, and lie within (-INFINITY, INFINITY).
+    //Iterative deepening searches the root with a window of ASPIRATION_WINDOW around the score of the previous iteration.
+    private static final int INFINITY = 1_000_000;
+    private static final int NO_SCORE = Integer.MIN_VALUE;
+    private static final int ASPIRATION_WINDOW = 8;
+    private boolean isPvs = true;
+    private boolean isAspirating = true;
+    private int previousScore = NO_SCORE;
+
+    //Parallel search (Young Brothers Wait): a node searches its first move alone, and if that gives no cutoff, the
+    //remaining moves in parallel with the window narrowed by the first. Nodes closer than MIN_SPLIT_DEPTH to the
+    //leaves are always searched by one thread.
+    private static final int MIN_SPLIT_DEPTH = 3;
+    private static final Map<Integer, ForkJoinPool> pools = new HashMap<>(); //Shared by all wizards, per thread count
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool; //Null when searching with one thread
+
+    //Evaluation of the leaves. Defaults to utility, the positional weights plus the token difference.
+    private IEvaluator evaluator = this::utility;
+
+    //Progress reports
+    private Consumer<SearchProgress> progress;
+    private long searchStart, searchStartNodes;
+
+    MinMaxWizardWithPruning() {
+        this.table = new TranspositionTable(DEFAULT_TABLE_SIZE);
+    }
 
     public MinMaxWizardWithPruning(int MAX_DEPTH) {
+        this(MAX_DEPTH, false);
+    }
+
+    public MinMaxWizardWithPruning(int MAX_DEPTH, boolean isInPlace) {
+        this(MAX_DEPTH, isInPlace, DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * @param tableSize Number of entries in the transposition table. 0 searches without a table.
+     */
+    public MinMaxWizardWithPruning(int MAX_DEPTH, boolean isInPlace, int tableSize) {
         this.MAX_DEPTH = MAX_DEPTH;
+        this.isInPlace = isInPlace;
+        if(tableSize > 0) this.table = new TranspositionTable(tableSize);
     }
 
     Position alphaBetaSearch(GameState s) {
-        return actions(s)
-                .parallelStream()
-                .max(Comparator.comparing(p -> minValue(result(s, p), Integer.MIN_VALUE, Integer.MAX_VALUE, 0)))
-                .orElse(new Position(-1,-1));
+        s = newSearch(s);
+        deadline = Deadline.unlimited(); //Only ended by stop
+        if(isStopRequested) deadline.expire();
+        completedDepth = MAX_DEPTH;
+        var move = searchToDepth(s, MAX_DEPTH);
+        report(MAX_DEPTH, move);
+        deadline = Deadline.NEVER;
+        return move;
+    }
+
+    /**
+     * Searches to depth 1, 2, 3... until the time is up, and returns the best move of the deepest search
+     * that was completed. The search of depth 1 is always completed, so a legal move is returned if there is one.
+     * @param millis Time for the move in milliseconds.
+     */
+    Position iterativeDeepening(GameState s, long millis) {
+        return iterativeDeepening(s, new Deadline(millis));
+    }
+
+    /**
+     * Like iterativeDeepening(GameState, long), until the clock expires, e.g. because another thread expired it.
+     */
+    Position iterativeDeepening(GameState s, Deadline clock) {
+        var moves = new int[s.getSize() * s.getSize()];
+        if(s.legalMoves(moves, 0) == 0) return new Position(-1,-1);
+
+        s = newSearch(s);
+        var best = position(s, moves[0]);
+        var t = s.countTokens();
+        var empties = s.getSize() * s.getSize() - t[0] - t[1];
+        completedDepth = 0;
+
+        deadline = Deadline.NEVER; //Depth 1 is cheap, and gives a move to fall back on.
+        for(var depth = 1; depth <= empties; depth++) {
+            var move = searchToDepth(s, depth);
+            if(deadline.isExpired()) break;
+            best = move;
+            completedDepth = depth;
+            report(depth, move);
+            deadline = clock;
+            if(isStopRequested) clock.expire();
+        }
+        deadline = Deadline.NEVER;
+        return best;
+    }
+
+    /**
+     * Makes a running alphaBetaSearch or iterativeDeepening return as soon as possible: alphaBetaSearch with the
+     * best move of the root moves searched so far, iterativeDeepening with the best move of the deepest completed
+     * search. Can be called from any thread.
+     */
+    void stop() {
+        isStopRequested = true;
+        deadline.expire();
+    }
+
+    /**
+     * Sets what is told every time a search completes a depth, on the searching thread. Null for nothing.
+     */
+    void setProgressListener(Consumer<SearchProgress> progress) {
+        this.progress = progress;
+    }
+
+    private void report(int depth, Position best) {
+        if(progress == null) return;
+        var score = previousScore == NO_SCORE ? 0 : previousScore;
+        progress.accept(new SearchProgress(depth, best, score, nodes.sum() - searchStartNodes, System.nanoTime() - searchStart));
+    }
+
+    /**
+     * Returns the depth of the last search that was completed by alphaBetaSearch or iterativeDeepening.
+     */
+    int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * Turns move ordering on or off, e.g. to compare the number of nodes searched with and without it.
+     */
+    void setMoveOrdering(boolean isOrdering) {
+        this.isOrdering = isOrdering;
+    }
+
+    /**
+     * Turns null window searches and aspiration windows on or off, e.g. to compare the number of nodes searched.
+     */
+    void setPrincipalVariationSearch(boolean isPvs) {
+        this.isPvs = isPvs;
+        this.isAspirating = isPvs;
+    }
+
+    /**
+     * Sets the number of threads to search with. Defaults to the number of processors.
+     */
+    void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets how the leaves of the search are evaluated. Null goes back to the default, utility.
+     */
+    void setEvaluator(IEvaluator evaluator) {
+        this.evaluator = evaluator == null ? this::utility : evaluator;
+        if(table != null) table.clear(); //Scores of the old evaluator
+    }
+
+    /**
+     * Keys the transposition table on the canonical state instead of the state, so that a state finds what was
+     * stored for any of its mirrors and rotations. Costs finding the canonical state at every node.
+     */
+    void setSymmetricKeys(boolean isSymmetric) {
+        this.isSymmetric = isSymmetric;
+        if(table != null) table.clear(); //Keys of the other kind
+    }
+
+    private static ForkJoinPool poolFor(int threads) {
+        synchronized(pools) {
+            return pools.computeIfAbsent(threads, ForkJoinPool::new);
+        }
+    }
+
+    //Resets the state of the previous search, and returns the state to search from.
+    private GameState newSearch(GameState s) {
+        isStopRequested = false;
+        searchStart = System.nanoTime();
+        searchStartNodes = nodes.sum();
+        pool = threads > 1 ? poolFor(threads) : null;
+        symmetry = Symmetry.forSize(s.getSize());
+        var t = s.countTokens();
+        ordering.prepare(s.getSize());
+        ordering.age(rootTokens < 0 ? -1 : t[0] + t[1] - rootTokens);
+        rootTokens = t[0] + t[1];
+        if(table != null) table.nextGeneration();
+        previousBest = hashMove(s); //The principal variation of an earlier search through s, if there was one
+        previousScore = NO_SCORE;
+        return evaluator.prepare(s);
     }
 
+    private Position searchToDepth(GameState s, int depth) {
+        searchDepth = depth;
+        var moves = new int[s.getSize() * s.getSize()];
+        var n = s.legalMoves(moves, 0);
+        if(n == 0) return new Position(-1,-1);
+        if(n == 1) return position(s, moves[0]); //Nothing to choose between
+        if(isOrdering) ordering.order(s, moves, new int[n], 0, n, previousBest, 0, true);
 
-    private int maxValue(GameState s, int alpha, int beta, int depth) {
-        if(terminalTest(s, depth)) return utility(s);
+        //Aspiration window: expect the score of the previous iteration, and widen the side that fails.
+        var alpha = -INFINITY;
+        var beta = INFINITY;
+        if(isAspirating && previousScore != NO_SCORE) {
+            alpha = previousScore - ASPIRATION_WINDOW;
+            beta = previousScore + ASPIRATION_WINDOW;
+        }
+        SplitPoint root;
+        while(true) {
+            var r = new SplitPoint(null, alpha, beta, -INFINITY, TranspositionTable.NO_MOVE);
+            if(pool == null) searchRoot(s, moves, n, r);
+            else pool.invoke(ForkJoinTask.adapt(() -> searchRoot(s, moves, n, r)));
+            root = r;
+            if(deadline.isExpired()) break;
+            if(root.value <= alpha && alpha > -INFINITY) alpha = -INFINITY;
+            else if(root.value >= beta && beta < INFINITY) beta = INFINITY;
+            else break;
+        }
+
+        previousBest = moves[root.bestIndex];
+        previousScore = root.value;
+        return position(s, previousBest);
+    }
+
+    //Searches the first root move alone and then the rest in parallel. The rest are tested against one below the
+    //best value so far, so a move as good as the best gets an exact value, and the first of equally good moves is
+    //played no matter which thread finishes first. A fail high stops the search; the caller widens the window.
+    private void searchRoot(GameState s, int[] moves, int n, SplitPoint root) {
+        var tasks = new ArrayList<Runnable>();
+        for(var i = 0; i < n; i++) {
+            var index = i;
+            var square = moves[i];
+            tasks.add(() -> {
+                if(isAborted(root)) return;
+                var child = forkResult(s, square);
+                var stack = stacks.get();
+                var r = index == 0
+                        ? -negamax(child, -root.beta, -root.alpha, 0, root, stack, stack.top)
+                        : searchChild(child, root.tieAlpha(), root.beta, 0, root, stack, stack.top);
+                if(!isAborted(root)) root.report(r, square, index);
+            });
+        }
+        tasks.remove(0).run();
+        runAll(tasks);
+    }
+
+    //Searches moves[from + 1] to moves[to - 1] in parallel, each from its own copy of s, and reports the results to
+    //the split point. The tasks stack their move lists above the entries up to `to`, which stay in use meanwhile.
+    private void split(GameState s, int[] moves, int from, int to, SplitPoint split, int depth, MoveStack stack) {
+        var tasks = new ArrayList<Runnable>();
+        for(var i = from + 1; i < to; i++) {
+            var index = i - from;
+            var square = moves[i];
+            tasks.add(() -> {
+                if(isAborted(split)) return;
+                var taskStack = stacks.get();
+                var r = searchChild(forkResult(s, square), split.alpha(), split.beta, depth, split, taskStack, taskStack.top);
+                if(!isAborted(split)) split.report(r, square, index);
+            });
+        }
+        var top = stack.top;
+        stack.top = to;
+        runAll(tasks);
+        stack.top = top;
+    }
+
+    private void runAll(List<Runnable> tasks) {
+        if(pool == null) tasks.forEach(Runnable::run);
+        else ForkJoinTask.invokeAll(tasks.stream().map(ForkJoinTask::adapt).collect(Collectors.toList()));
+    }
+
+    //Checks if the search below the split point should stop: the time is up, or it or a split point above it has cut off.
+    private boolean isAborted(SplitPoint split) {
+        return deadline.isExpired() || (split != null && split.isStopped());
+    }
+
+    private boolean canSplit(int remaining, int moves) {
+        return pool != null && remaining >= MIN_SPLIT_DEPTH && moves > 2;
+    }
+
+    /**
+     * Returns the value of the state for the player in turn. The first move of a node is searched with the
+     * window (alpha, beta), the others with a null window that only tells if they beat alpha, and are searched
+     * again with the full window if they do.
+     */
+    private int negamax(GameState s, int alpha, int beta, int depth, SplitPoint parent, MoveStack stack, int top) {
+        nodes.increment();
+        if(deadline.check() || isAborted(parent)) return 0;
+        var player = s.getPlayerInTurn();
+        if(depth >= searchDepth) return evaluator.evaluate(s, player);
+
+        var isCanonical = isSymmetric && table != null;
+        var t = isCanonical ? symmetry.canonical(s) : 0; //The symmetry to the state the table knows
+        var key = isCanonical ? symmetry.key(s, t) : s.getHash();
+        var remaining = searchDepth - depth;
+        var entry = probe(key);
+        if(entry != 0 && TranspositionTable.depth(entry) >= remaining && isCutoff(entry, alpha, beta)) return TranspositionTable.score(entry);
+
+        var moves = stack.reserve(top, s.getSize() * s.getSize());
+        var n = s.expand(moves, top);
+        if(n == GameState.FINISHED) return evaluator.evaluate(s, player);
+        var end = top + n;
+        if(n == 0) { //Pass
+            var child = pass(s);
+            var v = -negamax(child, -beta, -alpha, depth + 1, parent, stack, top);
+            leave(child);
+            if(isAborted(parent)) return v;
+            store(key, remaining, alpha, beta, v, TranspositionTable.NO_MOVE);
+            return v;
+        }
 
         var a = alpha;
-        var v  = Integer.MIN_VALUE;
+        var v  = -INFINITY;
+        var best = TranspositionTable.NO_MOVE;
+        var ply = depth;
         depth++;
 
-        for(var p : actions(s)) {
-            v = Math.max(v, minValue(result(s, p), a, beta, depth));
-            if(v >= beta) return v;
+        var hashMove = entry == 0 ? TranspositionTable.NO_MOVE : fromTable(symmetry, t, TranspositionTable.move(entry));
+        if(isOrdering) ordering.order(s, moves, stack.scores, top, end, hashMove, ply, remaining > 2);
+        for(var i = top; i < end; i++) {
+            if(i == top + 1 && canSplit(remaining, n)) {
+                var split = new SplitPoint(parent, a, beta, v, best);
+                split(s, moves, top, end, split, depth, stack);
+                if(isAborted(parent)) return v;
+                v = split.value;
+                best = split.best;
+                if(v >= beta && isOrdering) ordering.recordCutoff(s, best, ply, remaining);
+                break;
+            }
+            var child = enter(s, moves[i]);
+            var r = i == top ? -negamax(child, -beta, -a, depth, parent, stack, end) : searchChild(child, a, beta, depth, parent, stack, end);
+            leave(child);
+            if(isAborted(parent)) return v;
+            if(r > v) {
+                v = r;
+                best = moves[i];
+            }
+            if(v >= beta) {
+                if(isOrdering) ordering.recordCutoff(s, best, ply, remaining);
+                break;
+            }
             a = Math.max(a, v);
         }
 
+        store(key, remaining, alpha, beta, v, toTable(symmetry, t, best));
         return v;
     }
 
-    private int minValue(GameState s, int alpha, int beta, int depth) {
-        if(terminalTest(s, depth)) return utility(s);
+    //Searches a move after the first: with a null window around alpha, and again with (alpha, beta) if it beats alpha.
+    private int searchChild(GameState child, int alpha, int beta, int depth, SplitPoint parent, MoveStack stack, int top) {
+        if(!isPvs) return -negamax(child, -beta, -alpha, depth, parent, stack, top);
+        var r = -negamax(child, -alpha - 1, -alpha, depth, parent, stack, top);
+        if(r > alpha && r < beta && !isAborted(parent)) r = -negamax(child, -beta, -alpha, depth, parent, stack, top);
+        return r;
+    }
 
-        var b = beta;
-        var v  = Integer.MAX_VALUE;
-        depth++;
+    //Moves in the table are moves of the state symmetry t turns the searched state into.
+    private static int fromTable(Symmetry symmetry, int t, int move) {
+        return t == 0 || move == TranspositionTable.NO_MOVE ? move : symmetry.inverse[t][move];
+    }
 
-        for(var p : actions(s)) {
-            v = Math.min(v, maxValue(result(s, p), alpha, b, depth));
-            if(v <= alpha) return v;
-            b = Math.min(b, v);
-        }
+    private static int toTable(Symmetry symmetry, int t, int move) {
+        return t == 0 || move == TranspositionTable.NO_MOVE ? move : symmetry.squares[t][move];
+    }
 
-        return v;
+    //Returns the table entry for the key, or 0 if there is none.
+    private long probe(long key) {
+        return table == null ? 0 : table.probe(key);
+    }
+
+    //Checks if the stored score settles the value of the state within the window (alpha, beta).
+    private boolean isCutoff(long entry, int alpha, int beta) {
+        var score = TranspositionTable.score(entry);
+        var bound = TranspositionTable.bound(entry);
+        var isCutoff = bound == TranspositionTable.EXACT
+                || (bound == TranspositionTable.LOWER && score >= beta)
+                || (bound == TranspositionTable.UPPER && score <= alpha);
+        if(isCutoff) table.countCutoff();
+        return isCutoff;
+    }
+
+    //Stores the result of searching a state with the window (alpha, beta).
+    private void store(long key, int remaining, int alpha, int beta, int v, int best) {
+        if(table == null) return;
+        var bound = v <= alpha ? TranspositionTable.UPPER : v >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, remaining, bound, v, best);
     }
 
-    private GameState result(GameState s, Position p) {
-        var tmp = new GameState(s.getBoard(), s.getPlayerInTurn());
-        tmp.insertToken(p);
+    private GameState result(GameState s, int square) {
+        var tmp = new GameState(s);
+        tmp.insertToken(square);
         return tmp;
     }
 
-    private List<Position> actions(GameState s) {
-        return s.legalMoves().stream().distinct().collect(Collectors.toList());
+    //Moves searched by other threads get their own copy of the state, even when searching in place.
+    private GameState forkResult(GameState s, int square) {
+        if(!isInPlace) return result(s, square);
+        var tmp = new GameState(s);
+        tmp.makeMove(square);
+        return tmp;
+    }
+
+    //Returns the state after passing; either a new copy or s itself with the pass made.
+    private GameState pass(GameState s) {
+        if(!isInPlace) {
+            var tmp = new GameState(s);
+            tmp.changePlayer();
+            return tmp;
+        }
+        s.makePass();
+        return s;
+    }
+
+    //Returns the state after the move; either a new copy or s itself with the move made.
+    private GameState enter(GameState s, int square) {
+        if(!isInPlace) return result(s, square);
+        s.makeMove(square);
+        return s;
     }
 
-    private boolean terminalTest(GameState s, int depth) {
-        return s.isFinished() || (depth >= MAX_DEPTH);
+    //Takes back the move made by enter.
+    private void leave(GameState child) {
+        if(isInPlace) child.unmakeMove();
     }
 
-    private int utility(GameState s) {
-        return calculateActionWeight(s) + calculateActionCost(s);
+    private static Position position(GameState s, int square) {
+        return new Position(square / s.getSize(), square % s.getSize());
     }
 
-    private int calculateActionWeight(GameState gs) {
-        var b = gs.getBoard();
-        var w = 0;
-        for(var i = 0; i < 64; i++) {
-            w += Integer.compare(b[i / 8][i % 8], gs.getPlayerInTurn()) > -1 ? heuristicWeights[i] : -heuristicWeights[i];
+    //The value of the state for the player. Both terms are kept up to date by GameState, so this takes constant time.
+    int utility(GameState s, int player) {
+        return calculateActionWeight(s, player) + calculateActionCost(s, player);
+    }
+
+    //The positional weights (see PositionalWeights) of the player's tokens minus those of the opponent's.
+    private int calculateActionWeight(GameState gs, int player) {
+        return player == 1 ? gs.getWeightSum() : -gs.getWeightSum();
+    }
+
+    private int calculateActionCost(GameState gs, int player) {
+        return gs.getTokens(player) - gs.getTokens(3 - player);
+    }
+
+    TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the best move the table holds for the state, e.g. to guess the opponent's reply to the move just
+     * found, or TranspositionTable.NO_MOVE if there is none.
+     */
+    int hashMove(GameState s) {
+        if(!isSymmetric) {
+            var entry = probe(s.getHash());
+            return entry == 0 ? TranspositionTable.NO_MOVE : TranspositionTable.move(entry);
+        }
+        var symmetry = Symmetry.forSize(s.getSize());
+        var t = symmetry.canonical(s);
+        var entry = probe(symmetry.key(s, t));
+        return entry == 0 ? TranspositionTable.NO_MOVE : fromTable(symmetry, t, TranspositionTable.move(entry));
+    }
+
+    /**
+     * The move lists of the nodes being searched by one thread, stacked in one array so that nodes need not
+     * allocate their own. A node writes its moves from the index it is given, and gives its children the index
+     * after them. top is the first free index for tasks the thread picks up while it waits at a split point.
+     */
+    private static final class MoveStack {
+        private int[] moves = new int[1024];
+        private int[] scores = new int[1024];
+        private int top;
+
+        //Makes room for n entries from index from on, and returns the array to write the moves to.
+        int[] reserve(int from, int n) {
+            if(from + n > moves.length) {
+                var length = Math.max(2 * moves.length, from + n);
+                moves = Arrays.copyOf(moves, length);
+                scores = Arrays.copyOf(scores, length);
+            }
+            return moves;
+        }
+    }
+
+    private static final ThreadLocal<MoveStack> stacks = ThreadLocal.withInitial(MoveStack::new);
+
+    /**
+     * A node whose remaining moves are being searched in parallel. Holds the best value found so far, which
+     * narrows the window of the moves that have not started yet, and stops the search of the others on a cutoff.
+     */
+    private static final class SplitPoint {
+        private final SplitPoint parent;
+        private final int alpha, beta;  //The window of the node
+        private int value, best, bestIndex;
+        private volatile boolean isCutoff;
+
+        SplitPoint(SplitPoint parent, int alpha, int beta, int value, int best) {
+            this.parent = parent;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.value = value;
+            this.best = best;
+        }
+
+        synchronized int alpha() {
+            return Math.max(alpha, value);
+        }
+
+        //Alpha for a move that should get an exact value if it is as good as the best so far.
+        synchronized int tieAlpha() {
+            return value > alpha ? value - 1 : alpha;
+        }
+
+        //Takes the value of the move with the given index in the move list. Of equal values, the lowest index wins.
+        synchronized void report(int r, int square, int index) {
+            if(r > value || (r == value && index < bestIndex)) {
+                value = r;
+                best = square;
+                bestIndex = index;
+            }
+            if(value >= beta) isCutoff = true;
+        }
+
+        boolean isStopped() {
+            for(var p = this; p != null; p = p.parent) {
+                if(p.isCutoff) return true;
+            }
+            return false;
         }
-        return w;
     }
 
-    private int calculateActionCost(GameState gs) {
-        var t = gs.countTokens();
-        var tMax = gs.getPlayerInTurn() == 1 ? t[0] : t[1];
-        var tMin = gs.getPlayerInTurn() == 1 ? t[1] : t[0];
-        return tMax - tMin;
+    //Nodes searched, and probe, hit and cutoff counts of the transposition table if searching with one.
+    HashMap<String, Long> getStatistics() {
+        var map = table == null ? new HashMap<String, Long>() : table.getStatistics();
+        map.put("nodes", nodes.sum());
+        return map;
     }
 }
@@ -0,0 +1,162 @@
+import java.util.Arrays;
+
+/**
+ * Orders the moves of a state so that alpha-beta search tries the moves most likely to cause a cutoff first:
+ * the best move of an earlier search of the state (hash move), then the two killer moves of the ply, then
+ * the rest by history score plus a few static features (corners, squares next to empty corners, and how
+ * many moves the move leaves the opponent).
+ *
+ * The killer and history tables are shared by all threads of a search without synchronization. A lost
+ * update only makes the ordering slightly worse.
+ */
+public class MoveOrdering {
+    static final int MAX_PLY = 128;
+
+    //Scores that put the hash move and the killers ahead of anything history and static features can give.
+    private static final int HASH_MOVE = 1 << 30;
+    private static final int KILLER_1  = 1 << 29;
+    private static final int KILLER_2  = 1 << 28;
+    private static final int HISTORY_LIMIT = 1 << 24; //The history table is halved when a score passes this.
+
+    //Static features.
+    private static final int CORNER          = 20000;
+    private static final int X_SQUARE        = -10000; //Diagonally next to an empty corner
+    private static final int C_SQUARE        = -3000;  //Next to an empty corner along the edge
+    private static final int OPPONENT_MOVE   = -500;   //For every move the opponent has afterwards
+
+    private final int[][] killers = new int[MAX_PLY][2];
+    private int[][] history = new int[2][0];   //[player - 1][square]
+    private int[] corner = new int[0];          //Per square: the corner square it is next to (X or C square), or -1
+    private boolean[] isXSquare = new boolean[0];
+    private int size;
+
+    public MoveOrdering() {
+        clearKillers();
+    }
+
+    /**
+     * Sets the tables up for the board size. Call before every search, from the thread starting it.
+     * Keeps the history when the size is unchanged.
+     */
+    void prepare(int size) {
+        if(size == this.size) return;
+        this.size = size;
+        history = new int[2][size * size];
+        corner = new int[size * size];
+        isXSquare = new boolean[size * size];
+        Arrays.fill(corner, -1);
+
+        var last = size - 1;
+        for(var cc : new int[] {0, last}) {
+            for(var cr : new int[] {0, last}) {
+                var dc = cc == 0 ? 1 : -1;
+                var dr = cr == 0 ? 1 : -1;
+                var c = cc * size + cr;
+                corner[(cc + dc) * size + cr + dr] = c;
+                isXSquare[(cc + dc) * size + cr + dr] = true;
+                corner[(cc + dc) * size + cr] = c;
+                corner[cc * size + cr + dr] = c;
+            }
+        }
+        clearKillers();
+    }
+
+    /**
+     * Sorts the squares moves[from] to moves[to - 1] of the state, best first.
+     * @param scores Scratch space for the scores, used at the same indices as moves.
+     * @param hashMove The square that was best in an earlier search of the state, or TranspositionTable.NO_MOVE.
+     * @param ply The distance from the root of the search, used for the killer moves.
+     * @param useMobility Whether to count the opponent's moves after every move. Worth it except near the leaves.
+     */
+    void order(GameState s, int[] moves, int[] scores, int from, int to, int hashMove, int ply, boolean useMobility) {
+        if(to - from < 2) return;
+        for(var i = from; i < to; i++) {
+            scores[i] = score(s, moves[i], hashMove, ply, useMobility);
+        }
+
+        //Insertion sort; the lists are short.
+        for(var i = from + 1; i < to; i++) {
+            var score = scores[i];
+            var square = moves[i];
+            var j = i - 1;
+            while(j >= from && scores[j] < score) {
+                scores[j + 1] = scores[j];
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            scores[j + 1] = score;
+            moves[j + 1] = square;
+        }
+    }
+
+    /**
+     * Returns how promising the move at the square is; higher is better.
+     */
+    int score(GameState s, int square, int hashMove, int ply, boolean useMobility) {
+        if(square == hashMove) return HASH_MOVE;
+        if(ply < MAX_PLY) {
+            if(killers[ply][0] == square) return KILLER_1;
+            if(killers[ply][1] == square) return KILLER_2;
+        }
+        return history[s.getPlayerInTurn() - 1][square] + staticScore(s, square, useMobility);
+    }
+
+    /**
+     * Records that the move at the square caused a cutoff for the player in turn, with the given depth left to search.
+     */
+    void recordCutoff(GameState s, int square, int ply, int remaining) {
+        if(ply < MAX_PLY && killers[ply][0] != square) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = square;
+        }
+        var table = history[s.getPlayerInTurn() - 1];
+        table[square] += remaining * remaining;
+        if(table[square] > HISTORY_LIMIT) {
+            for(var i = 0; i < table.length; i++) table[i] /= 2;
+        }
+    }
+
+    /**
+     * Carries the tables over to a search from a state plies moves further into the game. The history is halved,
+     * so that what the new search finds soon outweighs it, and the killers move up by plies, so that they stay at
+     * the same point of the game. The killers are forgotten if plies is negative, e.g. in a new game.
+     */
+    void age(int plies) {
+        for(var table : history) {
+            for(var i = 0; i < table.length; i++) table[i] /= 2;
+        }
+        if(plies < 0) {
+            clearKillers();
+            return;
+        }
+        for(var ply = 0; ply < MAX_PLY; ply++) {
+            var from = ply + plies;
+            killers[ply][0] = from < MAX_PLY ? killers[from][0] : TranspositionTable.NO_MOVE;
+            killers[ply][1] = from < MAX_PLY ? killers[from][1] : TranspositionTable.NO_MOVE;
+        }
+    }
+
+    /**
+     * Forgets the killer moves, e.g. before searching a state that is not from the game of the last search.
+     */
+    void clearKillers() {
+        for(var k : killers) {
+            k[0] = TranspositionTable.NO_MOVE;
+            k[1] = TranspositionTable.NO_MOVE;
+        }
+    }
+
+    private int staticScore(GameState s, int square, boolean useMobility) {
+        var score = 0;
+        var c = corner[square];
+        if(c == -1) {
+            var col = square / size;
+            var row = square % size;
+            if((col == 0 || col == size - 1) && (row == 0 || row == size - 1)) score += CORNER;
+        } else if(s.getToken(c) == 0) {
+            score += isXSquare[square] ? X_SQUARE : C_SQUARE;
+        }
+        if(useMobility) score += OPPONENT_MOVE * s.getMobilityAfter(square);
+        return score;
+    }
+}
@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-only opening book: the move to play in positions near the start of the game, found ahead of time by
+ * OpeningBookBuilder. The file is memory mapped, so opening a book reads nothing, and a lookup is a binary
+ * search that only touches the pages it needs.
+ *
+ * File format (big endian): the magic number MAGIC, the board size and the number of entries, all ints,
+ * followed by the entries sorted by key. An entry is the canonical key of a position (see Symmetry) as a
+ * long and the move for the canonical position as a short.
+ */
+public class OpeningBook {
+    static final int MAGIC = 0x4F424B33;    //"OBK3"; books with the keys of earlier versions are not read
+    static final int HEADER_BYTES = 12;
+    static final int ENTRY_BYTES = 10;
+
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int entries;
+
+    //Statistics
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    private OpeningBook(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) throw new IOException("Not an opening book");
+        size = buffer.getInt(4);
+        entries = buffer.getInt(8);
+        if(buffer.capacity() != HEADER_BYTES + (long) entries * ENTRY_BYTES) throw new IOException("Opening book has the wrong length");
+    }
+
+    /**
+     * Maps the book in the given file into memory.
+     * @throws IOException if the file cannot be read or is not an opening book.
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try(var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the board size the book was built for.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of positions in the book.
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the book move (col * size + row) for the state, or TranspositionTable.NO_MOVE if the state is
+     * not in the book. Safe to call from several threads.
+     */
+    public int move(GameState s) {
+        lookups.increment();
+        if(s.getSize() != size) return TranspositionTable.NO_MOVE;
+        var symmetry = Symmetry.forSize(size);
+        var t = symmetry.canonical(s);
+        var key = symmetry.key(s, t);
+        var lo = 0;
+        var hi = entries - 1;
+        while(lo <= hi) {
+            var mid = (lo + hi) >>> 1;
+            var k = buffer.getLong(HEADER_BYTES + mid * ENTRY_BYTES);
+            if(k < key) lo = mid + 1;
+            else if(k > key) hi = mid - 1;
+            else {
+                hits.increment();
+                return symmetry.inverse[t][buffer.getShort(HEADER_BYTES + mid * ENTRY_BYTES + 8)];
+            }
+        }
+        return TranspositionTable.NO_MOVE;
+    }
+
+    HashMap<String, Long> getStatistics() {
+        var map = new HashMap<String, Long>();
+        map.put("lookups", lookups.sum());
+        map.put("hits", hits.sum());
+        map.put("entries", (long) entries);
+        return map;
+    }
+}
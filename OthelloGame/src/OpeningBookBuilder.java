@@ -0,0 +1,142 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds opening books (see OpeningBook) by asking an engine, typically a deep and slow search, for the move
+ * in every position the book should cover. Symmetric positions share one entry, so the engine is only asked
+ * once for all of them.
+ *
+ * Usage: java OpeningBookBuilder size plies millisPerMove file [selfPlayGames]
+ */
+public class OpeningBookBuilder {
+    private final IOthelloAI engine;
+    private final Map<Long, Integer> entries = new HashMap<>();    //Canonical hash -> move in the canonical position
+    private long searches;
+
+    /**
+     * @param engine Decides the book moves. Gets a copy of every position, so it may change it.
+     */
+    public OpeningBookBuilder(IOthelloAI engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Adds every position that can be reached from the given state in at most the given number of moves.
+     */
+    public void expand(GameState s, int plies) {
+        expand(s, plies, new HashSet<>());
+    }
+
+    private void expand(GameState s, int plies, Set<Long> expanded) {
+        var symmetry = Symmetry.forSize(s.getSize());
+        if(!expanded.add(symmetry.canonicalHash(s))) return;    //A symmetric position was expanded already
+        var moves = new int[s.getSize() * s.getSize()];
+        var n = s.expand(moves, 0);
+        if(n == GameState.FINISHED) return;
+        if(n == 0) {
+            var passed = new GameState(s);
+            passed.changePlayer();
+            expand(passed, plies, expanded);
+            return;
+        }
+        move(s);
+        if(plies == 0) return;
+        for(var i = 0; i < n; i++) {
+            var child = new GameState(s);
+            child.insertToken(moves[i]);
+            expand(child, plies - 1, expanded);
+        }
+    }
+
+    /**
+     * Plays games where the engine plays both sides, adding the positions of the first plies moves. To make
+     * the games differ, a random legal move is played instead of the engine's with the given probability.
+     */
+    public void selfPlay(GameState start, int games, int plies, double randomness, Random rnd) {
+        var moves = new int[start.getSize() * start.getSize()];
+        for(var game = 0; game < games; game++) {
+            var s = new GameState(start);
+            for(var ply = 0; ply < plies; ply++) {
+                var n = s.expand(moves, 0);
+                if(n == GameState.FINISHED) break;
+                if(n == 0) {
+                    s.changePlayer();
+                    continue;
+                }
+                var move = move(s);
+                s.insertToken(rnd.nextDouble() < randomness ? moves[rnd.nextInt(n)] : move);
+            }
+        }
+    }
+
+    /**
+     * Returns the book move for the state, asking the engine if the state is not in the book yet.
+     */
+    private int move(GameState s) {
+        var symmetry = Symmetry.forSize(s.getSize());
+        var t = symmetry.canonical(s);
+        var key = symmetry.key(s, t);
+        var move = entries.get(key);
+        if(move != null) return symmetry.inverse[t][move];
+
+        searches++;
+        var pos = engine.decideMove(new GameState(s));
+        var square = pos.col * s.getSize() + pos.row;
+        entries.put(key, symmetry.squares[t][square]);
+        return square;
+    }
+
+    /**
+     * Returns the number of positions in the book.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of times the engine has been asked for a move.
+     */
+    public long getSearches() {
+        return searches;
+    }
+
+    /**
+     * Writes the book to the file in the format OpeningBook reads.
+     * @param size The board size of the positions in the book.
+     */
+    public void write(Path file, int size) throws IOException {
+        var keys = entries.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        try(var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(size);
+            out.writeInt(keys.length);
+            for(var key : keys) {
+                out.writeLong(key);
+                out.writeShort(entries.get(key));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 4) {
+            System.out.println("Usage: java OpeningBookBuilder size plies millisPerMove file [selfPlayGames]");
+            System.exit(1);
+        }
+        var size = Integer.parseInt(args[0]);
+        var plies = Integer.parseInt(args[1]);
+        var builder = new OpeningBookBuilder(new OurAI(Long.parseLong(args[2])));
+        var start = new GameState(size, 1);
+        builder.expand(start, plies);
+        if(args.length >= 5) builder.selfPlay(start, Integer.parseInt(args[4]), 2 * plies, 0.1, new Random());
+        builder.write(Path.of(args[3]), size);
+        System.out.println("Wrote " + builder.size() + " positions to " + args[3] + " after " + builder.getSearches() + " searches");
+    }
+}
@@ -83,10 +83,11 @@ public class Othello
 
         	// Setup of the frame containing the game
         	JFrame f = new JFrame();
-        	f.setSize((size+2)*100,(size+2)*100);
+        	f.setSize((size+2)*100,(size+2)*100+40);
         	f.setTitle("Othello");
         	f.setDefaultCloseOperation (JFrame.EXIT_ON_CLOSE);
         	f.getContentPane().add(g);    
+        	f.getContentPane().add(g.getControls(), BorderLayout.SOUTH);
         	f.setVisible(true);
             f.getContentPane().setBackground( new Color(14, 140, 224) );
         }
@@ -4,12 +4,18 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * GUI to show the Othello game and to listen for input for the user/human player. When it is the user's turn, 
  * (s)he clicks on the place where (s)he wants to place a token, and when it is the computer's turn, the 
  * player needs to click anywhere in the frame to make the computer take it's turn. The user is made aware
  * of any illegal moves, or when (s)he - or the computer - have to pass because no legal moves are possible.  
+ * The computer thinks on a background thread, so the board stays responsive; the controls (see getControls) 
+ * show how far its search has come and can make it move at once.
  * @author Mai Ajspur
  * @version 9.2.2018
  */
@@ -24,6 +30,18 @@ public class OthelloGUI extends JComponent implements MouseListener
     private IOthelloAI ai1;			// The AI for player 1 if there are no human player
     private IOthelloAI ai2;			// The AI for player 2 
 
+	// Thinking in the background
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Othello AI");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private Future<Position> thinking;	// The running decideMove, or null; only used on the event thread
+	private IOthelloAI thinker;			// The AI of the running decideMove
+	private final JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+	private final JLabel status = new JLabel(" ");
+	private final JButton moveNow = new JButton("Move now");
+
     // Images for drawing the game board
     private Image 		part, blackPion, whitePion, background;
     private Image 		border_left, border_right, border_top, border_bottom;
@@ -60,6 +78,15 @@ public class OthelloGUI extends JComponent implements MouseListener
     	if ( !humanPlayer )
     		this.ai1 = ai1;
     	this.ai2=ai2;
+    	Consumer<SearchProgress> listener = p -> SwingUtilities.invokeLater(() -> showProgress(p));
+    	if ( this.ai1 instanceof IInteractiveAI ) ((IInteractiveAI) this.ai1).setProgressListener(listener);
+    	if ( ai2 instanceof IInteractiveAI ) ((IInteractiveAI) ai2).setProgressListener(listener);
+    	moveNow.setEnabled(false);
+    	moveNow.addActionListener(e -> {
+    		if ( thinking != null && thinker instanceof IInteractiveAI ) ((IInteractiveAI) thinker).moveNow();
+    	});
+    	controls.add(moveNow);
+    	controls.add(status);
     	this.addMouseListener(this);
     	this.setOpaque(false);
     	this.setBackground(Color.GREEN);
@@ -110,46 +137,101 @@ public class OthelloGUI extends JComponent implements MouseListener
     }
 
     public void mouseClicked(MouseEvent e){
+    	if ( state.isFinished() || thinking != null ) // Clicks wait until the AI has moved
+    		return;
+    	if ( state.getPlayerInTurn() == 1 && humanPlayer )
+    		play(humanSelectedPlace(e));
+    	else
+    		think(state.getPlayerInTurn() == 2 ? ai2 : ai1);
+    }
+
+    /**
+     * Plays the move of the player in turn, and tells about passes and illegal moves
+     */
+    private void play(Position place){
     	int currentPlayer = state.getPlayerInTurn();
-    	if ( !state.isFinished() ){
-    		Position place = getPlaceForNextToken(e);
-    		if ( state.insertToken(place) ){ // Chosen move is legal
-				boolean nextPlayerCannotMove = state.legalMoves().isEmpty();
-   				if ( nextPlayerCannotMove ){ // The next player cannot move
-					repaint();
-   					state.changePlayer();
-   					if ( humanPlayer ){ // If there is a human involved, (s)he needs to know this
-   	  					boolean canMoveAfterwards = !state.legalMoves().isEmpty();
-   	   					if ( canMoveAfterwards ){
-   	   						String message = currentPlayer == 1 ? "Your opponent has no legal moves. It is your turn again." 
-   	   													 	    : "You have no legal moves. Your opponent will make another move (click again).";
-   	   						JOptionPane.showMessageDialog(this, message);
-   	   					}  						
-   					}
-   				}
+		if ( state.insertToken(place) ){ // Chosen move is legal
+			boolean nextPlayerCannotMove = state.legalMoves().isEmpty();
+			if ( nextPlayerCannotMove ){ // The next player cannot move
+				repaint();
+				state.changePlayer();
+				if ( humanPlayer ){ // If there is a human involved, (s)he needs to know this
+					boolean canMoveAfterwards = !state.legalMoves().isEmpty();
+					if ( canMoveAfterwards ){
+						String message = currentPlayer == 1 ? "Your opponent has no legal moves. It is your turn again." 
+															: "You have no legal moves. Your opponent will make another move (click again).";
+						JOptionPane.showMessageDialog(this, message);
+					}  						
+				}
+			}
+		}
+		else 
+			illegalMoveAttempted(place); 		
+		repaint();
+    }
+
+    /**
+     * Asks the AI for its move on the background thread, on a copy of the state, and plays it on the event
+     * thread when it comes
+     */
+    private void think(IOthelloAI ai){
+    	GameState copy = new GameState(state);
+    	thinker = ai;
+    	status.setText("Thinking...");
+    	moveNow.setEnabled(ai instanceof IInteractiveAI);
+    	thinking = executor.submit(() -> {
+    		Position place = null;
+    		try {
+    			place = ai.decideMove(copy);
+    		} finally {
+    			Position move = place; // null if decideMove threw
+    			SwingUtilities.invokeLater(() -> moved(move));
+    		}
+    		return place;
+    	});
+    }
 
- 			}
-   			else 
-   				illegalMoveAttempted(place); 		
-    		repaint();
+    private void moved(Position place){
+    	if ( executor.isShutdown() ) // The GUI has been closed
+    		return;
+    	thinking = null;
+    	moveNow.setEnabled(false);
+    	if ( place == null ){
+    		int currentPlayer = state.getPlayerInTurn();
+    		JOptionPane.showMessageDialog(this, "The AI for player "+ currentPlayer + 
+    			(currentPlayer == 1 ? " (black)" : " (white)") + " threw an exception. Please debug!",
+    			"AI Failed", JOptionPane.ERROR_MESSAGE);
+    		return;
     	}
+    	play(place);
     }
-    
+
+    private void showProgress(SearchProgress p){
+    	if ( thinking == null ) // A late report of a finished search
+    		return;
+    	status.setText(String.format("Depth %d, best move %s, %,.0f nodes/s", p.getDepth(), p.getBest(), p.getNodesPerSecond()));
+    }
+
     /**
-     * Get a position to place the next token (i.e. read mouse click if human
-     * player is in turn, otherwise ask corresponding AI)
+     * Returns the panel with the "Move now" button and the progress of the AI, to be shown with the board.
      */
-    private Position getPlaceForNextToken(MouseEvent e){
-    	if ( state.getPlayerInTurn() == 2 ) 
-			return ai2.decideMove(state);
-		else {
-			if ( humanPlayer )
-				return humanSelectedPlace(e);
-			else
-				return ai1.decideMove(state);
-		}
+    public JComponent getControls(){
+    	return controls;
     }
 
+    /**
+     * Stops the AI thinking when the GUI is taken down.
+     */
+    @Override
+    public void removeNotify(){
+    	if ( thinking != null ){
+    		if ( thinker instanceof IInteractiveAI ) ((IInteractiveAI) thinker).moveNow();
+    		thinking.cancel(true);
+    	}
+    	executor.shutdownNow();
+    	super.removeNotify();
+    }
+    
     /**
      * Display message for when an illegal move has been attempted 
      */
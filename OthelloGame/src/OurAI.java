@@ -1,4 +1,5 @@
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * A simple OthelloAI-implementation. The method to decide the next move just
@@ -9,58 +10,185 @@ import java.util.*;
 
 //TODO: name this class after our group number
 
-public class OurAI implements IOthelloAI{
+public class OurAI implements IInteractiveAI{
 	private int maxDepth = 8;	//8 if 12,  11 if 8/default
 	private int currPlayer;		//1 or 2
+	private long millisPerMove = 0;	//If > 0, search with iterative deepening for this long instead of to maxDepth
+	private volatile Deadline deadline = Deadline.NEVER;	//Volatile so that moveNow can end it from another thread
+	private volatile boolean isStopRequested;
+	private MoveOrdering ordering = new MoveOrdering();
+	private int previousBest = TranspositionTable.NO_MOVE;	//Best root move of the previous iteration, searched first
+	private int rootTokens = -1;	//Tokens on the board at the last decideMove, to carry the move ordering over
+	private long nodes;
+	private static final float NO_SCORE = Float.NaN;	//No previous iteration
+	private static final float ASPIRATION_WINDOW = 4;
+	private float previousScore = NO_SCORE;	//Score of the previous iteration of iterative deepening
+	private int[][] moveLists = new int[0][];	//Legal squares per depth
+	private int[] scores = new int[0];			//Scratch space for MoveOrdering
+	private EndgameSolver endgame = new EndgameSolver();	//Plays perfectly once few enough squares are empty
+	private Consumer<SearchProgress> progress;
+	private long searchStart, searchStartNodes;
+
+	public OurAI(){}
+
+	/**
+	 * @param millisPerMove Time for every move in milliseconds. The AI searches deeper and deeper until the
+	 * time is up, and plays the best move of the deepest completed search.
+	 */
+	public OurAI(long millisPerMove){
+		this.millisPerMove = millisPerMove;
+	}
+
+	/**
+	 * Sets the number of empty squares from which on the AI solves the game exactly instead of searching
+	 * to a fixed depth. 0 turns the solver off.
+	 */
+	public void setEndgameThreshold(int empties){
+		endgame.setThreshold(empties);
+	}
 
 	public Position decideMove(GameState s){
+		isStopRequested = false;
+		searchStart = System.nanoTime();
+		searchStartNodes = nodes;
+		var clock = millisPerMove > 0 ? new Deadline(millisPerMove) : Deadline.unlimited();	//Unlimited is only ended by moveNow
+		if(endgame.canSolve(s)){
+			deadline = clock;
+			if(isStopRequested) clock.expire();
+			var pos = endgame.solve(s, clock);
+			deadline = Deadline.NEVER;
+			if(pos != null) return pos;	//Otherwise the time is up: the search below still gives a move
+		}
 		currPlayer = s.getPlayerInTurn();
-		return alphaBetaSearch(s);
+		var t = s.countTokens();
+		ordering.prepare(s.getSize());
+		ordering.age(rootTokens < 0 ? -1 : t[0] + t[1] - rootTokens);	//Keep the history and killers of the last move, aged
+		rootTokens = t[0] + t[1];
+		previousBest = TranspositionTable.NO_MOVE;
+		previousScore = NO_SCORE;
+		prepareMoveLists(s);
+		if(millisPerMove > 0) return iterativeDeepening(s, clock);
+		deadline = clock;
+		if(isStopRequested) deadline.expire();
+		var pos = alphaBetaSearch(s);
+		deadline = Deadline.NEVER;
+		return pos;
+	}
+
+	public void setProgressListener(Consumer<SearchProgress> listener){
+		this.progress = listener;
+	}
+
+	public void moveNow(){
+		isStopRequested = true;
+		deadline.expire();
+	}
+
+	private void report(int depth, Position best, float score){
+		if(progress == null) return;
+		progress.accept(new SearchProgress(depth, best, (int) score, nodes - searchStartNodes, System.nanoTime() - searchStart));
+	}
+
+	private Position iterativeDeepening(GameState s, Deadline clock){
+		if(s.legalMoves(moveLists[0], 0) == 0) return new Position(-1,-1);
+		Position best = position(s, moveLists[0][0]);
+		var t = s.countTokens();
+		var empties = s.getSize()*s.getSize() - t[0] - t[1];
+		var depth = maxDepth;
+
+		deadline = Deadline.NEVER; //The first search is cheap, and gives a move to fall back on.
+		for(maxDepth = 1; maxDepth <= empties; maxDepth++){
+			var pos = alphaBetaSearch(s);
+			if(deadline.isExpired()) break;
+			if(pos.col >= 0){
+				best = pos;
+				previousBest = pos.col*s.getSize() + pos.row;
+			}
+			report(maxDepth, best, previousScore);
+			deadline = clock;
+			if(isStopRequested) clock.expire();
+		}
+		deadline = Deadline.NEVER;
+		maxDepth = depth;
+		return best;
 	}
 	private Position alphaBetaSearch(GameState s){
-		Position pos = new Position(-1,-1);
-		float v = Float.MIN_VALUE;
-		float alpha = Float.MIN_VALUE;
+		var n = orderedActions(s, previousBest, 0, true);
+		var actions = moveLists[0];
+		float alpha = -Float.MAX_VALUE;
 		float beta	= Float.MAX_VALUE;
-        for (var a : legalActions(s)){
-			var r = minValue(result(s,a), 1 , alpha, beta);
-			if(r>v){
-				v=r;
-				pos = a;
+		if(!Float.isNaN(previousScore)){	//Aspiration window around the score of the previous iteration
+			alpha = previousScore - ASPIRATION_WINDOW;
+			beta = previousScore + ASPIRATION_WINDOW;
+		}
+		while(true){
+			Position pos = new Position(-1,-1);
+			float v = -Float.MAX_VALUE;
+			float a = alpha;
+			for (var i = 0; i < n; i++){
+				var child = result(s, actions[i]);
+				float r;
+				if(pos.col < 0) r = -negamax(child, 1, -beta, -a);
+				else{
+					r = -negamax(child, 1, -a-1, -a);
+					if(r > a && r < beta) r = -negamax(child, 1, -beta, -a);
+				}
+				if(deadline.isExpired()) return pos.col < 0 ? position(s, actions[0]) : pos;	//Stopped: the best move searched so far
+				if(r>v){
+					v=r;
+					pos = position(s, actions[i]);
+					if(millisPerMove == 0) report(maxDepth, pos, v);
+				}
+				if(v >= beta) break;
+				a = Math.max(a, v);
+			}
+			if(v <= alpha && alpha > -Float.MAX_VALUE) alpha = -Float.MAX_VALUE;	//Failed low, search again with a wider window
+			else if(v >= beta && beta < Float.MAX_VALUE) beta = Float.MAX_VALUE;
+			else{
+				previousScore = v;
+				return pos;
 			}
 		}
-        return pos;
 	}
 
-
-	private float maxValue(GameState s, int currDepth, float alpha, float beta){
-		if(terminalTest(s, currDepth)) return Utility(s);
-		float v = Float.MIN_VALUE;
-		for (var a : legalActions(s)){
-			v = Math.max(v, minValue(result(s, a), currDepth+1, alpha, beta));
-			if(v >= beta) return v;
+	//Principal variation search. Returns the value of s for the player in turn; the first move gets the window
+	//(alpha, beta), the rest a null window that is widened again only if the move beats alpha.
+	private float negamax(GameState s, int currDepth, float alpha, float beta){
+		nodes++;
+		if(deadline.check()) return 0;
+		var sign = s.getPlayerInTurn() == currPlayer ? 1 : -1;
+		if(currDepth >= maxDepth) return sign*Utility(s);
+		var n = orderedActions(s, TranspositionTable.NO_MOVE, currDepth, maxDepth-currDepth > 2);
+		if(n == GameState.FINISHED) return sign*Utility(s);
+		var actions = moveLists[currDepth];
+		if(n == 0){	//Pass
+			var child = new GameState(s);
+			child.changePlayer();
+			return -negamax(child, currDepth+1, -beta, -alpha);
+		}
+		float v = -Float.MAX_VALUE;
+		var isFirst = true;
+		for (var i = 0; i < n; i++){
+			var child = result(s, actions[i]);
+			float r;
+			if(isFirst) r = -negamax(child, currDepth+1, -beta, -alpha);
+			else{
+				r = -negamax(child, currDepth+1, -alpha-1, -alpha);
+				if(r > alpha && r < beta) r = -negamax(child, currDepth+1, -beta, -alpha);
+			}
+			isFirst = false;
+			if(deadline.isExpired()) return v;
+			v = Math.max(v, r);
+			if(v >= beta){
+				ordering.recordCutoff(s, actions[i], currDepth, maxDepth-currDepth);
+				return v;
+			}
 			alpha = Math.max(alpha, v);
-		} 
-		return v;
-	}
-	private float minValue(GameState s,int currDepth, float alpha, float beta){
-		if(terminalTest(s, currDepth)) return Utility(s);
-		float v = Float.MAX_VALUE;
-		for (var a : legalActions(s)){
-			v = Math.max(v, maxValue(result(s, a), currDepth+1, alpha, beta));
-			if(v <= alpha) return v;
-			beta = Math.min(beta, v);
-		} 
+		}
 		return v;
 	}
-	private boolean terminalTest(GameState s, int currDepth){
-		return s.isFinished() || currDepth>=maxDepth;
-	}
-
 	private int Utility(GameState s){
-		var results = s.countTokens();
-		if(currPlayer == 1) return results[0] - results[1];
-		return results[1] - results[0];
+		return s.getTokens(currPlayer) - s.getTokens(3 - currPlayer);
 	}
 	
 	private int Utility2(GameState s){
@@ -74,12 +202,33 @@ public class OurAI implements IOthelloAI{
 		if(currPlayer == 1) return  (results[0] > results[1])? 1 : (results[0] == results[1])? 0 : -1;
 		return  (results[0] < results[1])? 1 : (results[0] == results[1])? 0 : -1;
 	}
-	private Collection<Position> legalActions(GameState s){
-		return new HashSet<>(s.legalMoves());
+	//Makes a move list for every depth the search can reach from s, so the search allocates none.
+	private void prepareMoveLists(GameState s){
+		var squares = s.getSize()*s.getSize();
+		var t = s.countTokens();
+		var plies = Math.max(maxDepth, squares - t[0] - t[1]) + 1;
+		if(moveLists.length >= plies && scores.length == squares) return;
+		moveLists = new int[plies][squares];
+		scores = new int[squares];
+	}
+	//Writes the legal squares, best first, into the move list of the ply and returns how many there are,
+	//or GameState.FINISHED. See MoveOrdering.
+	private int orderedActions(GameState s, int hashMove, int ply, boolean useMobility){
+		var n = s.expand(moveLists[ply], 0);
+		if(n <= 0) return n;
+		ordering.order(s, moveLists[ply], scores, 0, n, hashMove, ply, useMobility);
+		return n;
+	}
+	private Position position(GameState s, int square){
+		return new Position(square / s.getSize(), square % s.getSize());
+	}
+	//Number of negamax calls since the AI was created.
+	long getNodeCount(){
+		return nodes;
 	}
-	private GameState result(GameState s, Position pos){
-        var newState = new GameState(s.getBoard(), s.getPlayerInTurn());
-		newState.insertToken(pos);
+	private GameState result(GameState s, int square){
+        var newState = new GameState(s);
+		newState.insertToken(square);
 		return newState;
 	}
 
@@ -0,0 +1,158 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Evaluates states by looking up the contents of every pattern instance (see Patterns) in a table of weights
+ * and adding them up. The game is split in phases by the number of tokens on the board, each with its own
+ * weights, since a pattern that is good early on can be bad near the end. GameState keeps the pattern indices
+ * up to date, so an evaluation is one table lookup per instance.
+ *
+ * Weights file format (big endian): the magic number MAGIC, the board size and the number of phases, all ints,
+ * followed by the weights of every phase as shorts: the table of every pattern type one after the other, in
+ * the order of Patterns.
+ */
+public class PatternEvaluator implements IEvaluator {
+    static final int MAGIC = 0x4F505731;    //"OPW1"
+    private static final int HEADER_BYTES = 12;
+
+    private final Patterns patterns;
+    private final short[][] weights;        //Per phase, the tables of all types one after the other
+    private final int[] instanceOffsets;    //Where the table of every instance starts
+
+    private PatternEvaluator(Patterns patterns, short[][] weights) {
+        this.patterns = patterns;
+        this.weights = weights;
+        instanceOffsets = new int[patterns.instances()];
+        for(var i = 0; i < instanceOffsets.length; i++) instanceOffsets[i] = patterns.typeOffsets[patterns.types[i]];
+    }
+
+    /**
+     * Returns an evaluator whose weights add up the positional weights (see PositionalWeights) of the tokens
+     * in every pattern, the same in every phase. A starting point until trained weights are loaded.
+     */
+    public static PatternEvaluator fromPositionalWeights(int size, int phases) {
+        var patterns = Patterns.forSize(size);
+        var positional = PositionalWeights.forSize(size);
+        var table = new short[patterns.tableLength];
+        for(var type = 0; type < patterns.typeLengths.length; type++) {
+            var shape = firstInstance(patterns, type);
+            for(var index = 0; index < Patterns.pow3(shape.length); index++) {
+                var w = 0;
+                var rest = index;
+                for(var digit = 0; digit < shape.length; digit++, rest /= 3) {
+                    if(rest % 3 == 1) w += positional[shape[digit]];
+                    else if(rest % 3 == 2) w -= positional[shape[digit]];
+                }
+                table[patterns.typeOffsets[type] + index] = (short) w;
+            }
+        }
+        var weights = new short[phases][];
+        for(var phase = 0; phase < phases; phase++) weights[phase] = table.clone();
+        return new PatternEvaluator(patterns, weights);
+    }
+
+    private static int[] firstInstance(Patterns patterns, int type) {
+        for(var i = 0; i < patterns.types.length; i++) {
+            if(patterns.types[i] == type) return patterns.squares[i];
+        }
+        throw new IllegalStateException("No instance of pattern type " + type);
+    }
+
+    /**
+     * Reads the weights file.
+     * @throws IOException if the file cannot be read, is not a weights file, or has the wrong length for its size.
+     */
+    public static PatternEvaluator load(Path file) throws IOException {
+        try(var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(HEADER_BYTES);
+            while(header.hasRemaining() && channel.read(header) >= 0);
+            header.flip();
+            if(header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) throw new IOException("Not a pattern weights file");
+            var size = header.getInt();
+            var phases = header.getInt();
+            Patterns patterns;
+            try {
+                patterns = Patterns.forSize(size);
+            } catch(IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+            if(phases < 1 || channel.size() != HEADER_BYTES + 2L * phases * patterns.tableLength) throw new IOException("Pattern weights file has the wrong length");
+
+            var buffer = ByteBuffer.allocate(2 * patterns.tableLength);
+            var weights = new short[phases][patterns.tableLength];
+            for(var phase = 0; phase < phases; phase++) {
+                buffer.clear();
+                while(buffer.hasRemaining() && channel.read(buffer) >= 0);
+                buffer.flip();
+                buffer.asShortBuffer().get(weights[phase]);
+            }
+            return new PatternEvaluator(patterns, weights);
+        }
+    }
+
+    /**
+     * Writes the weights in the format load reads.
+     */
+    public void write(Path file) throws IOException {
+        try(var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(patterns.size);
+            out.writeInt(weights.length);
+            for(var table : weights) {
+                for(var w : table) out.writeShort(w);
+            }
+        }
+    }
+
+    public int getPhases() {
+        return weights.length;
+    }
+
+    /**
+     * Returns the weight of the contents index of the given pattern type in the phase, e.g. for training.
+     */
+    public int getWeight(int phase, int type, int index) {
+        return weights[phase][patterns.typeOffsets[type] + index];
+    }
+
+    public void setWeight(int phase, int type, int index, int weight) {
+        weights[phase][patterns.typeOffsets[type] + index] = (short) weight;
+    }
+
+    /**
+     * Returns the phase of the game: 0 at the start, getPhases() - 1 when the board is full.
+     */
+    int phase(GameState s) {
+        var squares = s.getSize() * s.getSize();
+        var played = s.getTokens(1) + s.getTokens(2) - 4;
+        return Math.min(weights.length - 1, played * weights.length / (squares - 3));
+    }
+
+    @Override
+    public int evaluate(GameState s, int player) {
+        if(s.getPatterns() != patterns) s.setPatterns(patterns); //Not prepared; only the first evaluation pays for it
+        var indices = s.getPatternIndices();
+        var table = weights[phase(s)];
+        var v = 0;
+        for(var i = 0; i < indices.length; i++) v += table[instanceOffsets[i] + indices[i]];
+        return player == 1 ? v : -v;
+    }
+
+    /**
+     * Returns a copy of the state that keeps the pattern indices up to date, or the state itself if it already does.
+     */
+    @Override
+    public GameState prepare(GameState s) {
+        if(s.getSize() != patterns.size) throw new IllegalArgumentException("The weights are for size " + patterns.size + ", not " + s.getSize());
+        if(s.getPatterns() == patterns) return s;
+        var copy = new GameState(s);
+        copy.setPatterns(patterns);
+        return copy;
+    }
+}
@@ -0,0 +1,171 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * The patterns of a pattern evaluator (see PatternEvaluator): groups of squares whose contents are looked up
+ * together in a table of weights. A pattern type is a shape next to a corner, and its instances are the
+ * shape mirrored and rotated to every corner, so they share one table. The contents of an instance are its
+ * index: the number in base 3 whose digits are the tokens on its squares (0 empty, 1 black, 2 white), the
+ * first square being the lowest digit.
+ *
+ * The types are the edge with both X squares, the 3x3 and 2x5 corners, and the diagonals of length 4 to 8
+ * that cut off a corner. GameState keeps the indices of every instance up to date as tokens
+ * are placed and turned, so an evaluation only has to add up one weight per instance.
+ */
+public class Patterns {
+    public static final int MIN_SIZE = 6;
+    public static final int MAX_SIZE = 10;  //The edge pattern has size + 2 squares, so its table grows as 3^(size + 2)
+    private static final int MAX_DIAGONAL = 8;
+    private static final Patterns[] cache = new Patterns[MAX_SIZE + 1];
+
+    final int size;
+    final String[] typeNames;
+    final int[] typeLengths;    //Squares per type
+    final int[] typeOffsets;    //Where the table of each type starts when all tables are stored one after the other
+    final int tableLength;      //Total length of the tables
+    final int[] types;          //Type of every instance
+    final int[][] squares;      //Squares of every instance, lowest digit first
+
+    //The instances every square is part of, and the power of 3 of its digit in them: entries start[sq] to start[sq + 1]
+    private final int[] start;
+    private final int[] memberInstance;
+    private final int[] memberPower;
+
+    private Patterns(int size) {
+        this.size = size;
+        var last = size - 1;
+        var shapes = new ArrayList<int[]>();
+        var names = new ArrayList<String>();
+
+        var edge = new int[size + 2];
+        for(var row = 0; row < size; row++) edge[row] = square(0, row);
+        edge[size] = square(1, 1);
+        edge[size + 1] = square(1, last - 1);
+        shapes.add(edge);
+        names.add("edge+2X");
+
+        var corner3x3 = new int[9];
+        for(var i = 0; i < 9; i++) corner3x3[i] = square(i / 3, i % 3);
+        shapes.add(corner3x3);
+        names.add("corner3x3");
+
+        var corner2x5 = new int[10];
+        for(var i = 0; i < 10; i++) corner2x5[i] = square(i / 5, i % 5);
+        shapes.add(corner2x5);
+        names.add("corner2x5");
+
+        for(var length = 4; length <= Math.min(size, MAX_DIAGONAL); length++) {
+            var diagonal = new int[length];
+            for(var i = 0; i < length; i++) diagonal[i] = square(i, length - 1 - i);
+            shapes.add(diagonal);
+            names.add("diagonal" + length);
+        }
+
+        //Every shape in every corner, but each group of squares only once
+        var symmetry = Symmetry.forSize(size);
+        var typeList = new ArrayList<Integer>();
+        var squareList = new ArrayList<int[]>();
+        for(var type = 0; type < shapes.size(); type++) {
+            var seen = new HashSet<String>();
+            for(var t = 0; t < Symmetry.COUNT; t++) {
+                var shape = shapes.get(type);
+                var instance = new int[shape.length];
+                for(var i = 0; i < shape.length; i++) instance[i] = symmetry.squares[t][shape[i]];
+                var sorted = instance.clone();
+                Arrays.sort(sorted);
+                if(!seen.add(Arrays.toString(sorted))) continue;
+                typeList.add(type);
+                squareList.add(instance);
+            }
+        }
+
+        typeNames = names.toArray(new String[0]);
+        typeLengths = shapes.stream().mapToInt(s -> s.length).toArray();
+        typeOffsets = new int[typeLengths.length];
+        var offset = 0;
+        for(var type = 0; type < typeLengths.length; type++) {
+            typeOffsets[type] = offset;
+            offset += pow3(typeLengths[type]);
+        }
+        tableLength = offset;
+        types = typeList.stream().mapToInt(Integer::intValue).toArray();
+        squares = squareList.toArray(new int[0][]);
+
+        start = new int[size * size + 1];
+        for(var instance : squares) {
+            for(var sq : instance) start[sq + 1]++;
+        }
+        for(var sq = 0; sq < size * size; sq++) start[sq + 1] += start[sq];
+        memberInstance = new int[start[size * size]];
+        memberPower = new int[start[size * size]];
+        var fill = Arrays.copyOf(start, size * size);
+        for(var i = 0; i < squares.length; i++) {
+            for(var digit = 0; digit < squares[i].length; digit++) {
+                var sq = squares[i][digit];
+                memberInstance[fill[sq]] = i;
+                memberPower[fill[sq]] = pow3(digit);
+                fill[sq]++;
+            }
+        }
+    }
+
+    /**
+     * Returns the patterns of boards of the given size.
+     * @throws IllegalArgumentException if the size is not between MIN_SIZE and MAX_SIZE.
+     */
+    public static Patterns forSize(int size) {
+        if(size < MIN_SIZE || size > MAX_SIZE) throw new IllegalArgumentException("Patterns are only defined for sizes " + MIN_SIZE + " to " + MAX_SIZE + ", not " + size);
+        synchronized(cache) {
+            if(cache[size] == null) cache[size] = new Patterns(size);
+            return cache[size];
+        }
+    }
+
+    /**
+     * Returns the number of pattern instances on the board.
+     */
+    public int instances() {
+        return squares.length;
+    }
+
+    /**
+     * Computes the index of every instance for the state from scratch.
+     */
+    int[] indices(GameState s) {
+        var indices = new int[squares.length];
+        for(var i = 0; i < squares.length; i++) {
+            var index = 0;
+            for(var digit = squares[i].length - 1; digit >= 0; digit--) index = 3 * index + s.getToken(squares[i][digit]);
+            indices[i] = index;
+        }
+        return indices;
+    }
+
+    /**
+     * Updates the indices for a token of the player put on the square, and the tokens given as a mask at
+     * flips[offset] turned to the player. With sign -1, takes the same move back instead.
+     */
+    void update(int[] indices, int square, int player, long[] flips, int offset, int words, int sign) {
+        for(var m = start[square]; m < start[square + 1]; m++) indices[memberInstance[m]] += sign * player * memberPower[m];
+        var turn = sign * (2 * player - 3);    //A black token turned white adds 1 to the digit, the other way subtracts 1
+        for(var w = 0; w < words; w++) {
+            var f = flips[offset + w];
+            while(f != 0) {
+                var sq = (w << 6) + Long.numberOfTrailingZeros(f);
+                for(var m = start[sq]; m < start[sq + 1]; m++) indices[memberInstance[m]] += turn * memberPower[m];
+                f &= f - 1;
+            }
+        }
+    }
+
+    private int square(int col, int row) {
+        return col * size + row;
+    }
+
+    static int pow3(int n) {
+        var p = 1;
+        for(var i = 0; i < n; i++) p *= 3;
+        return p;
+    }
+}
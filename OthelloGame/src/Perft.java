@@ -0,0 +1,183 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the leaves of the game tree to a fixed depth (perft), to check the move generator against known counts
+ * and to measure how fast the tree can be walked without any evaluation.
+ *
+ * A pass is a ply like any move, made with makePass when the player in turn has no legal move but the opponent
+ * has (as changePlayer does for the GUI). A finished game (see isFinished) is a leaf whatever depth is left.
+ * The last ply is not made: the leaves below a state are its number of legal moves (bulk counting).
+ *
+ * Usage: java Perft [depth] [size] [threads] [cacheEntries]
+ */
+public class Perft {
+    /**
+     * Leaves of the standard 8x8 start position at depth 0, 1, 2, ...
+     */
+    static final long[] REFERENCE_8X8 = {
+        1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L, 212258800L, 1939886636L,
+    };
+
+    private static final int MIN_CACHED_DEPTH = 3;  //Shallower counts are cheaper to redo than to look up
+
+    //The cache: one entry per key index, keyed like TranspositionTable by the key xor'ed with the count
+    private final long[] keys;
+    private final long[] counts;
+    private final int mask;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    //Statistics
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private long leaves, nanos;
+
+    /**
+     * A perft without a cache.
+     */
+    public Perft() {
+        this(0);
+    }
+
+    /**
+     * @param cacheEntries The number of counts to remember, rounded down to a power of two. 0 for no cache.
+     */
+    public Perft(int cacheEntries) {
+        var entries = cacheEntries <= 0 ? 0 : Integer.highestOneBit(cacheEntries);
+        keys = new long[entries];
+        counts = new long[entries];
+        mask = entries - 1;
+    }
+
+    /**
+     * Sets the number of threads the moves at the root are split between. Defaults to the number of processors.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Returns the number of leaves of the game tree below the state to the given depth. The state is not changed.
+     */
+    public long count(GameState s, int depth) throws InterruptedException {
+        var start = System.nanoTime();
+        var result = 0L;
+        var squares = s.getSize() * s.getSize();
+        var moves = new int[squares * Math.max(depth, 1)];
+        var n = depth < 2 ? 0 : s.expand(moves, 0);
+        if(threads == 1 || n < 2) {
+            result = count(new GameState(s), depth, moves);
+        } else {
+            var pool = Executors.newFixedThreadPool(Math.min(threads, n));
+            try {
+                var tasks = new ArrayList<Callable<Long>>();
+                for(var i = 0; i < n; i++) {
+                    var child = new GameState(s);
+                    child.makeMove(moves[i]);
+                    tasks.add(() -> count(child, depth - 1, new int[squares * (depth - 1)]));
+                }
+                for(var future : pool.invokeAll(tasks)) result += future.get();
+            } catch(ExecutionException e) {
+                throw new IllegalStateException("A perft thread failed", e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        leaves += result;
+        nanos += System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Returns the number of leaves below the state for every legal move, in the order of legalMoves, to find
+     * which move a wrong count comes from. Empty if the player in turn has no move.
+     */
+    public long[] divide(GameState s, int depth) throws InterruptedException {
+        var moves = new int[s.getSize() * s.getSize()];
+        var n = s.legalMoves(moves, 0);
+        var result = new long[n];
+        for(var i = 0; i < n; i++) {
+            var child = new GameState(s);
+            child.makeMove(moves[i]);
+            result[i] = count(child, depth - 1);
+        }
+        return result;
+    }
+
+    //Walks the tree with a single state. moves has room for the legal moves of every ply.
+    private long count(GameState s, int depth, int[] moves) {
+        if(depth == 0) return 1;
+        var offset = (depth - 1) * s.getSize() * s.getSize();
+        var n = s.expand(moves, offset);
+        if(n == GameState.FINISHED) return 1;
+        if(depth == 1) return Math.max(n, 1);   //Bulk counting; a pass is one move
+
+        var cached = keys.length > 0 && depth >= MIN_CACHED_DEPTH;
+        var key = s.getHash() ^ (depth * 0x9E3779B97F4A7C15L);    //The same state at another depth has another count
+        var i = (int) (key ^ (key >>> 32)) & mask;
+        if(cached) {
+            probes.increment();
+            var c = counts[i];
+            if(c != 0 && (keys[i] ^ c) == key) {
+                hits.increment();
+                return c;
+            }
+        }
+
+        var result = 0L;
+        if(n == 0) {
+            s.makePass();
+            result = count(s, depth - 1, moves);
+            s.unmakeMove();
+        } else {
+            for(var j = offset; j < offset + n; j++) {
+                s.makeMove(moves[j]);
+                result += count(s, depth - 1, moves);
+                s.unmakeMove();
+            }
+        }
+        if(cached) {
+            counts[i] = result;
+            keys[i] = key ^ result;
+        }
+        return result;
+    }
+
+    /**
+     * Leaves counted per second over all calls of count so far.
+     */
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : leaves * 1e9 / nanos;
+    }
+
+    HashMap<String, Long> getStatistics() {
+        var map = new HashMap<String, Long>();
+        map.put("leaves", leaves);
+        map.put("nanos", nanos);
+        map.put("nodesPerSecond", (long) getNodesPerSecond());
+        map.put("cacheProbes", probes.sum());
+        map.put("cacheHits", hits.sum());
+        return map;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        var size = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        var perft = new Perft(args.length > 3 ? Integer.parseInt(args[3]) : 0);
+        if(args.length > 2) perft.setThreads(Integer.parseInt(args[2]));
+        var s = new GameState(size, 1);
+        for(var d = 1; d <= depth; d++) {
+            var start = System.nanoTime();
+            var leaves = perft.count(s, d);
+            var seconds = (System.nanoTime() - start) / 1e9;
+            var check = size != 8 || d >= REFERENCE_8X8.length ? "" : leaves == REFERENCE_8X8[d] ? "  ok" : "  WRONG, expected " + REFERENCE_8X8[d];
+            System.out.println(String.format(Locale.ROOT, "depth %2d: %,16d leaves %9.3f s %,14.0f nodes/s%s",
+                    d, leaves, seconds, leaves / Math.max(seconds, 1e-9), check));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * ExpertAI with pondering on (see ExpertAI.setPondering), for the GUI and Tournament, which make AIs by class name.
+ */
+public class PonderingAI extends ExpertAI {
+    public PonderingAI() {
+        setPondering(true);
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Tables of how much a token on each square is worth, one per board size. GameState keeps the weighted sum
+ * of the tokens on the board up to date as tokens are placed and turned, so evaluations can read it for free.
+ *
+ * A table has one entry per square, indexed like the board: col * size + row. Sizes without a table of their
+ * own get one built from the 8x8 table: corners are good, the squares next to them bad, edges fair.
+ */
+public class PositionalWeights {
+    private static final int[][] tables = new int[65][];
+
+    private static final int CORNER = 6;
+    private static final int C_SQUARE = -3;     //Next to a corner along the edge
+    private static final int X_SQUARE = -4;     //Diagonally next to a corner
+    private static final int EDGE = 2;
+    private static final int SECOND_RING = -1;  //Next to an edge
+    private static final int INNER = 1;         //Corners of the third ring, and the four middle squares
+
+    /**
+     * Returns the table for boards of the given size. The table is shared and must not be changed.
+     */
+    static int[] forSize(int size) {
+        if(size >= tables.length) return build(size);
+        synchronized(tables) {
+            if(tables[size] == null) tables[size] = build(size);
+            return tables[size];
+        }
+    }
+
+    /**
+     * Sets the table for boards of the given size. Game states created afterwards use it.
+     * @param weights One entry per square, indexed col * size + row.
+     */
+    public static void setForSize(int size, int[] weights) {
+        if(weights.length != size * size) throw new IllegalArgumentException("Expected " + size * size + " weights, got " + weights.length);
+        synchronized(tables) {
+            tables[size] = weights.clone();
+        }
+    }
+
+    private static int[] build(int size) {
+        var weights = new int[size * size];
+        var last = size - 1;
+        for(var col = 0; col < size; col++) {
+            for(var row = 0; row < size; row++) {
+                var edgeCol = Math.min(col, last - col);
+                var edgeRow = Math.min(row, last - row);
+                var ring = Math.min(edgeCol, edgeRow);
+                int w;
+                if(edgeCol == 0 && edgeRow == 0) w = CORNER;
+                else if(edgeCol + edgeRow == 1) w = C_SQUARE;
+                else if(edgeCol == 1 && edgeRow == 1) w = X_SQUARE;
+                else if(ring == 0) w = EDGE;
+                else if(ring == 1) w = SECOND_RING;
+                else if(edgeCol == 2 && edgeRow == 2) w = INNER;
+                else if(edgeCol == size / 2 - 1 && edgeRow == size / 2 - 1) w = INNER;
+                else w = 0;
+                weights[col * size + row] = w;
+            }
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * How far a running search has come: the deepest depth completed, the best move at that depth, and the work so far.
+ */
+public final class SearchProgress {
+    private final int depth;
+    private final Position best;
+    private final int score;
+    private final long nodes;
+    private final long nanos;
+
+    /**
+     * @param score Value of the best move for the player searching, in the units of the AI's evaluation.
+     * @param nanos Time since the search started.
+     */
+    public SearchProgress(int depth, Position best, int score, long nodes, long nanos) {
+        this.depth = depth;
+        this.best = best;
+        this.score = score;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public Position getBest() {
+        return best;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d, best %s, score %d, %,d nodes, %,.0f nodes/s", depth, best, score, nodes, getNodesPerSecond());
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records the nodes of searches to a file without slowing the search down much: search threads put fixed-size
+ * binary records in a lock-free ring buffer, and a background thread writes them to the file. When the buffer
+ * is full, records are dropped and counted rather than making the search wait. See TraceRenderer to read a trace.
+ *
+ * Every search starts with a ROOT record and BOARD records holding the state searched. Every node is a NODE
+ * record written when its score is known, so children come before their parent in the file. Node ids are
+ * given out in the order nodes are entered.
+ *
+ * File format (big endian): the int MAGIC, then records of RECORD_LONGS longs:
+ *  0: the id of the node or search.
+ *  1: the id of the parent (the search for nodes at depth 0), or -1 for ROOT and BOARD records.
+ *  2: type in bits 56-63, depth (BOARD: chunk index) in 48-55, move + 1 in 32-47, and in 0-31 the player
+ *     in turn after the move (ROOT: size << 8 | player in turn).
+ *  3: alpha in bits 32-63 and beta in 0-31 (BOARD: black tokens of squares 64 * chunk to 64 * chunk + 63).
+ *  4: the score (BOARD: white tokens).
+ */
+public class SearchTrace implements AutoCloseable {
+    static final int MAGIC = 0x4F545231;    //"OTR1"
+    static final int RECORD_LONGS = 5;
+    static final int ROOT = 1, BOARD = 2, NODE = 3;
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final long IDLE_NANOS = 100_000;  //How long the writer sleeps when the buffer is empty
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final long[] slots;
+    private final AtomicLongArray published;   //Slot i holds record p when published[i] == p + 1
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();    //Records claimed, with CLOSED set once no more can be
+    private volatile long written;             //Records taken out of the buffer by the writer
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+
+    private final DataOutputStream out;
+    private final Thread writer;
+    private volatile IOException failure;
+
+    private int maxDepth = Integer.MAX_VALUE;
+    private int sampleInterval = 1;
+
+    //Statistics
+    private final LongAdder records = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates the file, or empties it, and starts the writer.
+     * @param capacity Records the buffer holds, rounded down to a power of two.
+     */
+    public SearchTrace(Path file, int capacity) throws IOException {
+        var size = Integer.highestOneBit(Math.max(capacity, 2));
+        slots = new long[size * RECORD_LONGS];
+        published = new AtomicLongArray(size);
+        mask = size - 1;
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        writer = new Thread(this::drain, "SearchTrace writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public SearchTrace(Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Only records nodes at most this deep. The parents of a recorded node are always recorded too.
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Only records one in every interval searches, starting with the first.
+     */
+    public void setSampleInterval(int interval) {
+        this.sampleInterval = Math.max(1, interval);
+    }
+
+    /**
+     * Decides if the search about to start is recorded, and if so records the state it searches.
+     * @return the id of the search, the parent of the nodes at depth 0, or -1 if the search is not recorded.
+     */
+    public long startSearch(GameState s) {
+        if(searches.getAndIncrement() % sampleInterval != 0) return -1;
+        var id = ids.getAndIncrement();
+        var size = s.getSize();
+        put(id, -1, ROOT, 0, TranspositionTable.NO_MOVE, size << 8 | s.getPlayerInTurn(), 0, 0);
+        for(var chunk = 0; chunk * 64 < size * size; chunk++) {
+            long black = 0, white = 0;
+            for(var i = 0; i < 64 && chunk * 64 + i < size * size; i++) {
+                var token = s.getToken(chunk * 64 + i);
+                if(token == 1) black |= 1L << i;
+                else if(token == 2) white |= 1L << i;
+            }
+            put(id, -1, BOARD, chunk, TranspositionTable.NO_MOVE, 0, black, white);
+        }
+        return id;
+    }
+
+    /**
+     * Returns a new node id. Ids are unique within the trace and given out in increasing order.
+     */
+    public long newNode() {
+        return ids.getAndIncrement();
+    }
+
+    /**
+     * Records a searched node, unless it is deeper than the depth filter.
+     * @param move The square (col * size + row) played to reach the node from its parent, or GameState.PASS.
+     * @param player The player in turn at the node.
+     */
+    public void node(long id, long parent, int depth, int move, int player, int alpha, int beta, int score) {
+        if(depth > maxDepth) return;
+        put(id, parent, NODE, depth, move, player, (long) alpha << 32 | (beta & 0xFFFFFFFFL), score);
+    }
+
+    private void put(long id, long parent, int type, int depth, int move, int aux, long word3, long word4) {
+        long p;
+        do { //Claim the next slot, unless the trace is closed or the writer is a whole buffer behind
+            p = claimed.get();
+            if((p & CLOSED) != 0 || p - written > mask) {
+                dropped.increment();
+                return;
+            }
+        } while(!claimed.compareAndSet(p, p + 1));
+
+        var i = (int) (p & mask) * RECORD_LONGS;
+        slots[i] = id;
+        slots[i + 1] = parent;
+        slots[i + 2] = (long) type << 56 | (long) (depth & 0xFF) << 48 | (long) ((move + 1) & 0xFFFF) << 32 | (aux & 0xFFFFFFFFL);
+        slots[i + 3] = word3;
+        slots[i + 4] = word4;
+        published.set((int) (p & mask), p + 1);
+        records.increment();
+    }
+
+    //The writer thread: writes published records in order until closed and empty. Closing sets CLOSED in the same
+    //word that claims slots, so no record can be claimed after the writer has seen the last one.
+    private void drain() {
+        var p = written;
+        try {
+            while(true) {
+                if(published.get((int) (p & mask)) == p + 1) {
+                    var i = (int) (p & mask) * RECORD_LONGS;
+                    for(var j = 0; j < RECORD_LONGS; j++) out.writeLong(slots[i + j]);
+                    written = ++p;
+                } else if(claimed.get() == (p | CLOSED)) {
+                    break;
+                } else {
+                    out.flush();
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+        } catch(IOException e) {
+            failure = e;
+            claimed.getAndUpdate(c -> c | CLOSED);
+        } finally {
+            try {
+                out.close();
+            } catch(IOException e) {
+                if(failure == null) failure = e;
+            }
+        }
+    }
+
+    /**
+     * Stops recording, writes the records still in the buffer and closes the file.
+     * @throws IOException if the file could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        claimed.getAndUpdate(c -> c | CLOSED);
+        try {
+            writer.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the trace", e);
+        }
+        if(failure != null) throw failure;
+    }
+
+    /**
+     * Returns the number of records put in the buffer and the number dropped because it was full.
+     */
+    HashMap<String, Long> getStatistics() {
+        var map = new HashMap<String, Long>();
+        map.put("records", records.sum());
+        map.put("dropped", dropped.sum());
+        map.put("written", written);
+        map.put("searches", searches.get());
+        return map;
+    }
+
+    /**
+     * Reads the fields of a record word 2.
+     */
+    static int type(long word) {
+        return (int) (word >>> 56);
+    }
+
+    static int depth(long word) {
+        return (int) (word >>> 48) & 0xFF;
+    }
+
+    static int move(long word) {
+        return ((int) (word >>> 32) & 0xFFFF) - 1;
+    }
+
+    static int aux(long word) {
+        return (int) word;
+    }
+}
@@ -2,9 +2,10 @@ import java.util.ArrayList;
 
 
 public class SmartAI implements IOthelloAI {
+    private final MinMaxWizard wizard = new MinMaxWizard(); //One per game
 
     public Position decideMove(GameState s){
-        return new MinMaxWizard().minMaxDecision(s);
+        return wizard.minMaxDecision(s);
     }
 
 }
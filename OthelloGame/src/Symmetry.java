@@ -0,0 +1,157 @@
+/**
+ * The eight symmetries of a square board: the four rotations, each with and without mirroring. States that
+ * are mirrors or rotations of each other are equally good, so tables keyed by state (like an opening book or
+ * a transposition table) can store one canonical state for all eight: the one whose key is the smallest.
+ * Moves are stored for the canonical state and mapped back to the state at hand with the inverse symmetry.
+ *
+ * On 8x8 boards the keys are computed from the token masks, which every symmetry turns into each other with a
+ * few bit operations, so canonical costs about as much as generating the moves of a state. On other sizes the
+ * key is the Zobrist hash of the turned board, which takes a pass over the board per symmetry.
+ *
+ * Symmetry 0 is the identity.
+ */
+public class Symmetry {
+    public static final int COUNT = 8;
+    private static final Symmetry[] tables = new Symmetry[65];
+    private static final long SIDE_KEY = 0x9E3779B97F4A7C15L;  //Key for white being in turn on 8x8 boards
+
+    final int size;
+    final int[][] squares;  // squares[t][square] is where symmetry t moves square to
+    final int[][] inverse;  // inverse[t][squares[t][square]] == square
+
+    private Symmetry(int size) {
+        this.size = size;
+        squares = new int[COUNT][size * size];
+        inverse = new int[COUNT][size * size];
+        var last = size - 1;
+        for(var t = 0; t < COUNT; t++) {
+            for(var col = 0; col < size; col++) {
+                for(var row = 0; row < size; row++) {
+                    var c = (t & 1) != 0 ? last - col : col;
+                    var r = (t & 2) != 0 ? last - row : row;
+                    var to = (t & 4) != 0 ? r * size + c : c * size + r;
+                    squares[t][col * size + row] = to;
+                    inverse[t][to] = col * size + row;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the symmetries of boards of the given size.
+     */
+    static Symmetry forSize(int size) {
+        if(size >= tables.length) return new Symmetry(size);
+        synchronized(tables) {
+            if(tables[size] == null) tables[size] = new Symmetry(size);
+            return tables[size];
+        }
+    }
+
+    /**
+     * Returns the Zobrist hash the state would have after applying symmetry t to its board.
+     */
+    long hash(GameState s, int t) {
+        var zobrist = Zobrist.forSize(size);
+        var map = squares[t];
+        var h = s.getPlayerInTurn() == 2 ? zobrist.side : 0;
+        for(var sq = 0; sq < map.length; sq++) {
+            var player = s.getToken(sq);
+            if(player != 0) h ^= zobrist.key(player, map[sq]);
+        }
+        return h;
+    }
+
+    /**
+     * Returns the key the state would have after applying symmetry t to its board. Equal boards with the same
+     * player in turn have equal keys. Not the same as the Zobrist hash on 8x8 boards, see the class comment.
+     */
+    long key(GameState s, int t) {
+        if(size != BitBoard.SIZE) return hash(s, t);
+        return key(transform(s.getTokenMask(1), t), transform(s.getTokenMask(2), t), s.getPlayerInTurn());
+    }
+
+    /**
+     * Returns the symmetry that turns the state into its canonical state, the one with the smallest key.
+     */
+    int canonical(GameState s) {
+        var best = 0;
+        if(size == BitBoard.SIZE) {
+            var black = s.getTokenMask(1);
+            var white = s.getTokenMask(2);
+            var player = s.getPlayerInTurn();
+            var bestKey = key(black, white, player);
+            for(var t = 1; t < COUNT; t++) {
+                var k = key(transform(black, t), transform(white, t), player);
+                if(k < bestKey) {
+                    best = t;
+                    bestKey = k;
+                }
+            }
+            return best;
+        }
+        var bestHash = s.getHash();
+        for(var t = 1; t < COUNT; t++) {
+            var h = hash(s, t);
+            if(h < bestHash) {
+                best = t;
+                bestHash = h;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the key of the canonical state of the state. Equal for all eight symmetric states.
+     */
+    long canonicalHash(GameState s) {
+        return key(s, canonical(s));
+    }
+
+    /**
+     * Returns an 8x8 token mask (bit col * 8 + row, see BitBoard) with symmetry t applied, like squares[t].
+     */
+    static long transform(long mask, int t) {
+        if((t & 1) != 0) mask = Long.reverseBytes(mask);                //col to 7 - col: a column is a byte
+        if((t & 2) != 0) mask = Long.reverseBytes(Long.reverse(mask));  //row to 7 - row: the bits of every byte
+        if((t & 4) != 0) mask = transpose(mask);
+        return mask;
+    }
+
+    //Swaps col and row, i.e. the low and high three bits of every square, with three delta swaps.
+    private static long transpose(long x) {
+        var d = 0x0F0F0F0F00000000L & (x ^ (x << 28));
+        x ^= d ^ (d >>> 28);
+        d = 0x3333000033330000L & (x ^ (x << 14));
+        x ^= d ^ (d >>> 14);
+        d = 0x5500550055005500L & (x ^ (x << 7));
+        x ^= d ^ (d >>> 7);
+        return x;
+    }
+
+    //Mixes the masks into a key (the finalizer of MurmurHash3 on each), and the player in turn on its own: added
+    //into a mask, white in turn would give the same key as black in turn with one more white token on square 0.
+    private static long key(long black, long white, int player) {
+        return mix(black ^ mix(white)) ^ (player == 2 ? SIDE_KEY : 0);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Returns a copy of the state with symmetry t applied to its board.
+     */
+    GameState apply(GameState s, int t) {
+        var board = new int[size][size];
+        var map = squares[t];
+        for(var sq = 0; sq < map.length; sq++)
+            board[map[sq] / size][map[sq] % size] = s.getToken(sq);
+        return new GameState(board, s.getPlayerInTurn());
+    }
+}
@@ -0,0 +1,368 @@
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Plays a match of many games between two AIs without the GUI, several games at a time, and reports the result
+ * as JSON lines: one line per game as soon as it is finished, and a summary line at the end.
+ *
+ * Games are played in pairs from the same opening, a few random moves from the start, with the AIs swapping
+ * colours, so that neither AI gains from a lucky opening or from the colour it plays. Every game gets new
+ * instances of the AIs, since AIs keep state between moves and are not made to be shared between threads.
+ *
+ * The processors are one budget for the games and the searches: with g games at a time, the AIs that search on
+ * several threads (ExpertAI and MctsAI) get processors / g threads each, at least one. Otherwise their searches
+ * would queue behind those of the other games, and the move times and the share of the processors a timed AI
+ * gets would depend on the other games. The two AIs of a game take turns, so they share the same threads;
+ * only a pondering ExpertAI uses its threads while the opponent thinks.
+ *
+ * Usage: java Tournament AI1 AI2 [games] [size] [threads]
+ */
+public class Tournament {
+    private static final int DEFAULT_OPENING_PLIES = 6;
+    private static final int HISTOGRAM_BUCKETS = 40;   //Bucket k counts moves that took from 2^k to 2^(k+1) microseconds
+    private static final double Z_95 = 1.96;           //Normal quantile of a 95% confidence interval
+
+    private final String[] names;
+    private final List<Supplier<IOthelloAI>> ais;
+    private final int size;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int openingPlies = DEFAULT_OPENING_PLIES;
+    private long seed = 1;
+
+    /**
+     * @param a Makes a new instance of the first AI for every game.
+     * @param b Makes a new instance of the second AI for every game.
+     */
+    public Tournament(String nameA, Supplier<IOthelloAI> a, String nameB, Supplier<IOthelloAI> b, int size) {
+        this.names = new String[] {nameA, nameB};
+        this.ais = List.of(a, b);
+        this.size = size;
+    }
+
+    /**
+     * Sets the number of games played at the same time. Defaults to the number of processors, which gives
+     * every search one thread; see the class comment.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the number of random moves played from the start to make an opening.
+     */
+    public void setOpeningPlies(int openingPlies) {
+        this.openingPlies = openingPlies;
+    }
+
+    /**
+     * Sets the seed of the random openings, so matches can be repeated.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Plays the games, rounded up to an even number, and writes a JSON line to out for every game and for the summary.
+     * @return the summary, from the view of the first AI.
+     */
+    public Summary run(int games, PrintStream out) throws InterruptedException {
+        var openings = openings((games + 1) / 2, new Random(seed));
+        var pool = Executors.newFixedThreadPool(threads);
+        var results = new ExecutorCompletionService<Game>(pool);
+        try {
+            for(var i = 0; i < 2 * openings.size(); i++) {
+                var index = i;
+                var opening = openings.get(i / 2);
+                results.submit(() -> play(index, opening, index % 2));
+            }
+            var summary = new Summary(names);
+            for(var i = 0; i < 2 * openings.size(); i++) {
+                Game game;
+                try {
+                    game = results.take().get();
+                } catch(ExecutionException e) {
+                    throw new IllegalStateException("A game failed", e.getCause());
+                }
+                summary.add(game);
+                out.println(game.toJson(names));
+            }
+            out.println(summary.toJson());
+            return summary;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the given number of openings: states after openingPlies random moves, each one different from the
+     * others and from their mirror images, as far as there are enough of them.
+     */
+    private ArrayList<GameState> openings(int count, Random rnd) {
+        var openings = new ArrayList<GameState>();
+        var seen = new HashSet<Long>();
+        var symmetry = Symmetry.forSize(size);
+        var moves = new int[size * size];
+        for(var attempt = 0; openings.size() < count; attempt++) {
+            var s = new GameState(size, 1);
+            for(var ply = 0; ply < openingPlies; ply++) {
+                var n = s.expand(moves, 0);
+                if(n == GameState.FINISHED) break;
+                if(n == 0) s.changePlayer();
+                else s.insertToken(moves[rnd.nextInt(n)]);
+            }
+            if(seen.add(symmetry.canonicalHash(s)) || attempt > 100 * count) openings.add(s); //Repeat openings when they run out
+        }
+        return openings;
+    }
+
+    /**
+     * Plays one game from the opening.
+     * @param black Which AI (0 or 1) plays black.
+     */
+    private Game play(int index, GameState opening, int black) {
+        var s = new GameState(opening);
+        var players = new IOthelloAI[2];
+        players[black] = ais.get(black).get();
+        players[1 - black] = ais.get(1 - black).get();
+        var searchThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / threads);
+        for(var player : players) limitThreads(player, searchThreads);
+        var game = new Game(index, black);
+        var moves = new int[size * size];
+        try {
+            while(true) {
+                var n = s.expand(moves, 0);
+                if(n == GameState.FINISHED) break;
+                if(n == 0) {
+                    s.changePlayer();
+                    continue;
+                }
+                var ai = s.getPlayerInTurn() == 1 ? black : 1 - black;
+                var start = System.nanoTime();
+                var move = players[ai].decideMove(new GameState(s));
+                game.addMove(ai, System.nanoTime() - start);
+                if(!s.insertToken(move)) { //An illegal move loses the game
+                    game.winner = 1 - ai;
+                    game.forfeit = true;
+                    return game;
+                }
+            }
+            game.discs[black] = s.getTokens(1);
+            game.discs[1 - black] = s.getTokens(2);
+            game.winner = game.discs[0] > game.discs[1] ? 0 : game.discs[1] > game.discs[0] ? 1 : -1;
+            return game;
+        } finally {
+            for(var ai = 0; ai < 2; ai++) finish(game, ai, players[ai]);
+        }
+    }
+
+    //Lets an AI that searches on several threads use only its share of the processors.
+    private static void limitThreads(IOthelloAI player, int threads) {
+        if(player instanceof ExpertAI expert) expert.setThreads(threads);
+        if(player instanceof MctsAI mcts) mcts.setThreads(threads);
+    }
+
+    //Stops what the AI does in the background, e.g. pondering, and keeps its ponder statistics.
+    private static void finish(Game game, int ai, IOthelloAI player) {
+        if(player instanceof ExpertAI expert) {
+            game.ponders[ai] = expert.getStatistics().get("ponders");
+            game.ponderHits[ai] = expert.getStatistics().get("ponderHits");
+        }
+        if(player instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch(Exception e) {
+                throw new IllegalStateException("Could not stop " + player.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * The result of one game. AIs are numbered 0 and 1 as given to the tournament.
+     */
+    private static final class Game {
+        final int index, black;
+        int winner = -1;        //-1 for a draw
+        boolean forfeit;
+        final int[] discs = new int[2];
+        final int[] moves = new int[2];
+        final long[] nanos = new long[2];
+        final long[][] histogram = new long[2][HISTOGRAM_BUCKETS];
+        final long[] ponders = new long[2];
+        final long[] ponderHits = new long[2];
+
+        Game(int index, int black) {
+            this.index = index;
+            this.black = black;
+        }
+
+        void addMove(int ai, long nanos) {
+            moves[ai]++;
+            this.nanos[ai] += nanos;
+            histogram[ai][bucket(nanos)]++;
+        }
+
+        String toJson(String[] names) {
+            return String.format(Locale.ROOT,
+                    "{\"type\":\"game\",\"game\":%d,\"black\":%s,\"white\":%s,\"winner\":%s,\"forfeit\":%b,\"discs\":{%s:%d,%s:%d},\"avgMoveMillis\":{%s:%.3f,%s:%.3f}}",
+                    index, quote(names[black]), quote(names[1 - black]), winner < 0 ? "null" : quote(names[winner]), forfeit,
+                    quote(names[0]), discs[0], quote(names[1]), discs[1],
+                    quote(names[0]), averageMillis(nanos[0], moves[0]), quote(names[1]), averageMillis(nanos[1], moves[1]));
+        }
+    }
+
+    /**
+     * The result of a match from the view of the first AI, with the Elo difference it implies.
+     */
+    public static final class Summary {
+        private final String[] names;
+        public int wins, losses, draws, forfeits;
+        private final long[] moves = new long[2];
+        private final long[] nanos = new long[2];
+        private final long[][] histogram = new long[2][HISTOGRAM_BUCKETS];
+        private final long[] ponders = new long[2];
+        private final long[] ponderHits = new long[2];
+
+        Summary(String[] names) {
+            this.names = names;
+        }
+
+        void add(Game game) {
+            if(game.winner == 0) wins++;
+            else if(game.winner == 1) losses++;
+            else draws++;
+            if(game.forfeit) forfeits++;
+            for(var ai = 0; ai < 2; ai++) {
+                moves[ai] += game.moves[ai];
+                nanos[ai] += game.nanos[ai];
+                ponders[ai] += game.ponders[ai];
+                ponderHits[ai] += game.ponderHits[ai];
+                for(var k = 0; k < HISTOGRAM_BUCKETS; k++) histogram[ai][k] += game.histogram[ai][k];
+            }
+        }
+
+        public int getGames() {
+            return wins + losses + draws;
+        }
+
+        /**
+         * Points per game of the first AI: 1 for a win, 1/2 for a draw.
+         */
+        public double getScore() {
+            return getGames() == 0 ? 0.5 : (wins + 0.5 * draws) / getGames();
+        }
+
+        /**
+         * Returns the Elo rating of the first AI minus that of the second.
+         */
+        public double getElo() {
+            return elo(getScore());
+        }
+
+        /**
+         * Returns the lower and upper bound of the 95% confidence interval of getElo.
+         */
+        public double[] getEloInterval() {
+            var n = getGames();
+            var p = getScore();
+            var variance = n == 0 ? 0 : (wins * sq(1 - p) + draws * sq(0.5 - p) + losses * sq(p)) / n;
+            var margin = Z_95 * Math.sqrt(variance / Math.max(n, 1));
+            return new double[] {elo(p - margin), elo(p + margin)};
+        }
+
+        /**
+         * Returns the average time per move of the first (0) or second (1) AI in milliseconds.
+         */
+        public double getAverageMoveMillis(int ai) {
+            return averageMillis(nanos[ai], moves[ai]);
+        }
+
+        /**
+         * Returns the ponder hit rate (see ExpertAI.getPonderHitRate) of the first (0) or second (1) AI, or 0 if it
+         * did not ponder.
+         */
+        public double getPonderHitRate(int ai) {
+            return ponders[ai] == 0 ? 0 : (double) ponderHits[ai] / ponders[ai];
+        }
+
+        String toJson() {
+            var interval = getEloInterval();
+            return String.format(Locale.ROOT,
+                    "{\"type\":\"summary\",\"ai\":%s,\"opponent\":%s,\"games\":%d,\"wins\":%d,\"losses\":%d,\"draws\":%d,\"forfeits\":%d,"
+                            + "\"winRate\":%.4f,\"score\":%.4f,\"elo\":%.1f,\"eloLow\":%.1f,\"eloHigh\":%.1f,"
+                            + "\"avgMoveMillis\":{%s:%.3f,%s:%.3f},\"ponderHitRate\":{%s:%.4f,%s:%.4f},\"moveMicrosHistogram\":{%s:%s,%s:%s}}",
+                    quote(names[0]), quote(names[1]), getGames(), wins, losses, draws, forfeits,
+                    getGames() == 0 ? 0.0 : (double) wins / getGames(), getScore(), getElo(), interval[0], interval[1],
+                    quote(names[0]), getAverageMoveMillis(0), quote(names[1]), getAverageMoveMillis(1),
+                    quote(names[0]), getPonderHitRate(0), quote(names[1]), getPonderHitRate(1),
+                    quote(names[0]), histogramJson(histogram[0]), quote(names[1]), histogramJson(histogram[1]));
+        }
+
+        //Bucket k as "2^k":count, for the buckets from the first to the last that is not empty.
+        private static String histogramJson(long[] buckets) {
+            int from = 0, to = buckets.length - 1;
+            while(from < to && buckets[from] == 0) from++;
+            while(to > from && buckets[to] == 0) to--;
+            var json = new StringBuilder("{");
+            for(var k = from; k <= to; k++) {
+                if(k > from) json.append(',');
+                json.append('"').append(1L << k).append("\":").append(buckets[k]);
+            }
+            return json.append('}').toString();
+        }
+
+        private static double elo(double score) {
+            var p = Math.min(Math.max(score, 1e-3), 1 - 1e-3); //A clean sweep would be infinitely better
+            return -400 * Math.log10(1 / p - 1);
+        }
+
+        private static double sq(double x) {
+            return x * x;
+        }
+    }
+
+    private static int bucket(long nanos) {
+        var micros = nanos / 1000;
+        return micros == 0 ? 0 : Math.min(HISTOGRAM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+
+    private static double averageMillis(long nanos, long moves) {
+        return moves == 0 ? 0 : nanos / 1e6 / moves;
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if(args.length < 2) {
+            System.err.println("Usage: java Tournament AI1 AI2 [games] [size] [threads]");
+            System.exit(1);
+        }
+        var games = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        var size = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        var tournament = new Tournament(args[0], factory(args[0]), args[1], factory(args[1]), size);
+        if(args.length > 4) tournament.setThreads(Integer.parseInt(args[4]));
+        tournament.run(games, System.out);
+    }
+
+    //Makes new instances of the named IOthelloAI class, like Othello does for the GUI.
+    private static Supplier<IOthelloAI> factory(String className) {
+        return () -> {
+            try {
+                return Othello.parseGameLogicParam(className);
+            } catch(ClassNotFoundException | NoSuchMethodException | InstantiationException
+                    | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalArgumentException("Cannot make an instance of " + className + ": " + e, e);
+            }
+        };
+    }
+}
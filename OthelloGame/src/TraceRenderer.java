@@ -0,0 +1,168 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Turns a trace written by SearchTrace into the board dumps MinMaxWizard prints when debugging: for every node
+ * in the order it was searched, the state before the move, the move, and the state after it, followed by the
+ * depth, window and score the search gave the node. The states are rebuilt by replaying the moves from the root.
+ *
+ * Usage: java TraceRenderer traceFile [maxNodes]
+ */
+public class TraceRenderer {
+    private final HashMap<Long, GameState> roots = new HashMap<>();
+    private final HashMap<Long, long[]> nodes = new HashMap<>();   //Node id to its record
+    private final ArrayList<Long> order = new ArrayList<>();       //Searches and nodes by id
+
+    /**
+     * Reads the whole trace.
+     * @throws IOException if the file cannot be read or is not a trace.
+     */
+    public TraceRenderer(Path file) throws IOException {
+        var boards = new HashMap<Long, int[][]>();
+        var headers = new HashMap<Long, Long>();
+        try(var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if(in.readInt() != SearchTrace.MAGIC) throw new IOException("Not a search trace");
+            var record = new long[SearchTrace.RECORD_LONGS];
+            while(read(in, record)) {
+                var id = record[0];
+                switch(SearchTrace.type(record[2])) {
+                    case SearchTrace.ROOT -> {
+                        var size = SearchTrace.aux(record[2]) >> 8;
+                        boards.put(id, new int[size][size]);
+                        headers.put(id, record[2]);
+                    }
+                    case SearchTrace.BOARD -> {
+                        var board = boards.get(id);
+                        if(board == null) break; //The root record was dropped
+                        var size = board.length;
+                        var chunk = SearchTrace.depth(record[2]);
+                        for(var i = 0; i < 64 && chunk * 64 + i < size * size; i++) {
+                            var square = chunk * 64 + i;
+                            if((record[3] >>> i & 1) != 0) board[square / size][square % size] = 1;
+                            else if((record[4] >>> i & 1) != 0) board[square / size][square % size] = 2;
+                        }
+                    }
+                    case SearchTrace.NODE -> nodes.put(id, record.clone());
+                    default -> throw new IOException("Unknown trace record type " + SearchTrace.type(record[2]));
+                }
+            }
+        }
+        for(var entry : boards.entrySet()) {
+            var player = SearchTrace.aux(headers.get(entry.getKey())) & 0xFF;
+            roots.put(entry.getKey(), new GameState(entry.getValue(), player));
+        }
+        order.addAll(roots.keySet());
+        order.addAll(nodes.keySet());
+        order.sort(null);
+    }
+
+    //Reads a record into the array, or returns false at the end of the file.
+    private static boolean read(DataInputStream in, long[] record) throws IOException {
+        try {
+            for(var j = 0; j < record.length; j++) record[j] = in.readLong();
+            return true;
+        } catch(EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of nodes in the trace.
+     */
+    public int getNodes() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the state of the node with the given id: the state at its search's root with the moves of the
+     * path to it played, or null if the trace does not have the whole path.
+     */
+    public GameState state(long id) {
+        var root = roots.get(id);
+        if(root != null) return new GameState(root);
+        var record = nodes.get(id);
+        if(record == null) return null;
+        var s = state(record[1]);
+        if(s == null) return null;
+        var move = SearchTrace.move(record[2]);
+        if(move == GameState.PASS) s.changePlayer();
+        else s.insertToken(move);
+        return s;
+    }
+
+    /**
+     * Writes the dumps of at most maxNodes nodes.
+     */
+    public void render(PrintStream out, long maxNodes) {
+        var dumper = new MinMaxWizard();
+        var rendered = 0L;
+        for(var id : order) {
+            if(rendered >= maxNodes) break;
+            var root = roots.get(id);
+            if(root != null) {
+                out.println("----------- Search " + id + " ----------");
+                dumper.printBoard(out, root.getBoard());
+                continue;
+            }
+            var record = nodes.get(id);
+            var parent = state(record[1]);
+            if(parent == null) continue; //Part of the path was dropped or filtered out
+            render(out, dumper, parent, record);
+            rendered++;
+        }
+    }
+
+    //The same dump as MinMaxWizard.result, plus what the search found.
+    private static void render(PrintStream out, MinMaxWizard dumper, GameState parent, long[] record) {
+        var size = parent.getSize();
+        var move = SearchTrace.move(record[2]);
+        var position = move == GameState.PASS ? null : new Position(move / size, move % size);
+        out.println();
+        out.println();
+        out.println("Turn: " + ((parent.getPlayerInTurn() == 1) ? "Black" : "White"));
+
+        out.println("Game state info:");
+        out.println(" - IsTerminal: " + new GameState(parent).isFinished());
+        out.println(" - Legal moves count: " + parent.legalMoves().size());
+        out.println(" - Legal moves:" + dumper.legalMovesToString(parent));
+        dumper.printBoard(out, parent.getBoard());
+
+        out.println();
+        out.println("Selected action: " + (position == null ? "pass" : position.toString()));
+        var child = new GameState(parent);
+        if(position == null) child.changePlayer();
+        out.println("Legal: " + (position == null || child.insertToken(position)));
+        out.println();
+
+        dumper.printBoard(out, child.getBoard());
+
+        var isFinished = new GameState(child).isFinished();
+        var tokens = child.countTokens();
+        out.println("IsFinished: " + isFinished);
+        out.println("Black tokens: " + tokens[0]);
+        out.println("White tokens: " + tokens[1]);
+        if(isFinished) out.println("Winner: " + (tokens[0] == tokens[1] ? "Draw" : tokens[0] > tokens[1] ? "Black" : "White"));
+        out.println("Depth: " + SearchTrace.depth(record[2]) + ", window: [" + (int) (record[3] >> 32) + ", " + (int) record[3]
+                + "], score: " + record[4]);
+
+        out.println();
+        out.println("---------------------------------------------------------------");
+        out.println();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1) {
+            System.err.println("Usage: java TraceRenderer traceFile [maxNodes]");
+            System.exit(1);
+        }
+        var renderer = new TraceRenderer(Path.of(args[0]));
+        renderer.render(System.out, args.length > 1 ? Long.parseLong(args[1]) : Long.MAX_VALUE);
+    }
+}
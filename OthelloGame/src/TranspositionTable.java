@@ -0,0 +1,167 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size table of search results keyed by the Zobrist hash of a game state.
+ *
+ * The table is split in buckets of two entries. The first entry keeps the result that was searched the
+ * deepest, the second always takes the latest result that did not go into the first. Every entry is a key
+ * and a packed data word. The key is stored xor'ed with the data, so a probe that races with a store on
+ * another thread sees a key that does not match instead of a mix of two results. This makes the table
+ * safe to share between search threads without locks.
+ *
+ * Entries stay valid from one search to the next, so a long-lived table lets a search use what the earlier
+ * ones found. Instead of clearing it, call nextGeneration before every search: entries of earlier generations
+ * can still be probed, but a deep old entry no longer keeps the first place of its bucket from new results.
+ */
+public class TranspositionTable {
+    //Bound types of a stored score.
+    public static final int EXACT = 0;  //The score is the value of the state
+    public static final int LOWER = 1;  //The value is at least the score (the search failed high)
+    public static final int UPPER = 2;  //The value is at most the score (the search failed low)
+
+    public static final int NO_MOVE = -1;
+
+    // Layout of a data word: score in bits 0-31, depth in 32-39, bound in 40-41, move + 1 in 42-57, and the
+    // generation modulo GENERATIONS in 58-62.
+    // Bit 63 is always set, so a data word is never 0, which is what probe returns on a miss.
+    private static final long VALID = 1L << 63;
+    private static final int GENERATIONS = 32;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int generation;
+
+    //Statistics
+    private final LongAdder probes  = new LongAdder();
+    private final LongAdder hits    = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    private final LongAdder stores  = new LongAdder();
+
+    /**
+     * @param entries The number of entries in the table. Rounded down to a power of two, and at least 2.
+     */
+    public TranspositionTable(int entries) {
+        var buckets = Integer.highestOneBit(Math.max(entries / 2, 1));
+        keys = new long[buckets * 2];
+        data = new long[buckets * 2];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * Returns the data stored for the key, or 0 if the key is not in the table.
+     * Use score, depth, bound and move to read the data.
+     */
+    public long probe(long key) {
+        probes.increment();
+        var i = index(key);
+        for(var j = i; j < i + 2; j++) {
+            var d = data[j];
+            if(d != 0 && (keys[j] ^ d) == key) {
+                hits.increment();
+                return d;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result for the key.
+     * @param depth The remaining depth the state was searched to. Should be between 0 and 255.
+     * @param bound EXACT, LOWER or UPPER.
+     * @param move The best square found, or NO_MOVE.
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        stores.increment();
+        var d = VALID | (score & 0xFFFFFFFFL) | ((long) depth << 32) | ((long) bound << 40) | ((long) (move + 1) << 42)
+                | ((long) generation << 58);
+        var i = index(key);
+        var deepest = data[i];
+        var j = (deepest == 0 || depth >= depth(deepest) || generation(deepest) != generation || (keys[i] ^ deepest) == key) ? i : i + 1;
+        data[j] = d;
+        keys[j] = key ^ d;
+    }
+
+    /**
+     * Counts that a probe result was good enough to end the search of a state without searching its children.
+     */
+    public void countCutoff() {
+        cutoffs.increment();
+    }
+
+    /**
+     * Starts a new search. Entries stored before are kept, but lose their claim to the first place of their bucket.
+     * Call from the thread starting the search.
+     */
+    public void nextGeneration() {
+        generation = (generation + 1) % GENERATIONS;
+    }
+
+    /**
+     * Removes every entry and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        probes.reset();
+        hits.reset();
+        cutoffs.reset();
+        stores.reset();
+    }
+
+    public int size() {
+        return data.length;
+    }
+
+    public static int score(long data) {
+        return (int) data;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 40) & 0x3;
+    }
+
+    public static int move(long data) {
+        return (int) ((data >>> 42) & 0xFFFF) - 1;
+    }
+
+    static int generation(long data) {
+        return (int) (data >>> 58) & (GENERATIONS - 1);
+    }
+
+    /**
+     * Fraction of probes that found their key.
+     */
+    public double getHitRate() {
+        var p = probes.sum();
+        return p == 0 ? 0 : (double) hits.sum() / p;
+    }
+
+    /**
+     * Fraction of probes that ended the search of a state.
+     */
+    public double getCutoffRate() {
+        var p = probes.sum();
+        return p == 0 ? 0 : (double) cutoffs.sum() / p;
+    }
+
+    HashMap<String, Long> getStatistics() {
+        var map = new HashMap<String, Long>();
+        map.put("probes", probes.sum());
+        map.put("hits", hits.sum());
+        map.put("cutoffs", cutoffs.sum());
+        map.put("stores", stores.sum());
+        map.put("entries", (long) data.length);
+        return map;
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) << 1;
+    }
+}
@@ -0,0 +1,255 @@
+/**
+ * Board of any size stored as two arrays of 64-bit words, one per player. Square = col * size + row
+ * is bit number (square % 64) of word (square / 64).
+ *
+ * Works like BitBoard, except that the shifts carry bits across word boundaries and that one step in
+ * the column direction is a shift by size. The Kogge-Stone fill doubles its step until it spans a full
+ * row, so a 16x16 board needs 4 steps where 8x8 needs 3.
+ */
+public class WideBitBoard implements IBoard {
+    private int size;
+    private int words;          // Number of 64-bit words per player
+    private int fillSteps;      // Number of doubling steps needed to cross the board
+
+    private int[] shifts;       // Direction d moves shifts[d] bits
+    private long[][] masks;     // masks[d] are the squares on the board that can be entered when moving in direction d
+    private long[] onBoard;     // The squares of the board
+
+    private long[] black;
+    private long[] white;
+
+    // Scratch space for the fills.
+    private long[] gen, pro, tmp, acc, flipScratch;
+
+    WideBitBoard(int size) {
+        this.size = size;
+        this.words = (size * size + 63) / 64;
+        this.fillSteps = 32 - Integer.numberOfLeadingZeros(Math.max(size - 2, 1));
+        this.shifts = new int[] { 1, -1, size, -size, size + 1, -(size + 1), size - 1, -(size - 1) };
+        this.black = new long[words];
+        this.white = new long[words];
+
+        onBoard = new long[words];
+        var notFirstRow = new long[words];
+        var notLastRow = new long[words];
+        for(var sq = 0; sq < size * size; sq++) {
+            onBoard[sq >>> 6] |= 1L << sq;
+            if(sq % size != 0) notFirstRow[sq >>> 6] |= 1L << sq;
+            if(sq % size != size - 1) notLastRow[sq >>> 6] |= 1L << sq;
+        }
+        masks = new long[][] { notFirstRow, notLastRow, onBoard, onBoard, notFirstRow, notLastRow, notLastRow, notFirstRow };
+        allocateScratch();
+    }
+
+    private WideBitBoard(WideBitBoard other) {
+        this.size = other.size;
+        this.words = other.words;
+        this.fillSteps = other.fillSteps;
+        this.shifts = other.shifts;
+        this.masks = other.masks;
+        this.onBoard = other.onBoard;
+        this.black = other.black.clone();
+        this.white = other.white.clone();
+        allocateScratch();
+    }
+
+    private void allocateScratch() {
+        gen = new long[words];
+        pro = new long[words];
+        tmp = new long[words];
+        acc = new long[words];
+        flipScratch = new long[words];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int get(int square) {
+        if(((black[square >>> 6] >>> square) & 1) != 0) return 1;
+        if(((white[square >>> 6] >>> square) & 1) != 0) return 2;
+        return 0;
+    }
+
+    public void set(int square, int player) {
+        var bit = 1L << square;
+        var w = square >>> 6;
+        black[w] &= ~bit;
+        white[w] &= ~bit;
+        if(player == 1) black[w] |= bit;
+        else if(player == 2) white[w] |= bit;
+    }
+
+    public int count(int player) {
+        var tokens = player == 1 ? black : white;
+        var n = 0;
+        for(var w = 0; w < words; w++) n += Long.bitCount(tokens[w]);
+        return n;
+    }
+
+    /**
+     * Writes a mask with a bit set for every square that is a legal move for the given player into moves.
+     * @param moves Should have room for at least one word per 64 squares.
+     */
+    public void legalMoveMask(int player, long[] moves) {
+        var own = player == 1 ? black : white;
+        var opp = player == 1 ? white : black;
+        for(var w = 0; w < words; w++) moves[w] = 0;
+
+        for(var d = 0; d < 8; d++) {
+            var s = shifts[d];
+            var mask = masks[d];
+            for(var w = 0; w < words; w++) {
+                gen[w] = own[w];
+                pro[w] = opp[w] & mask[w];
+            }
+            fill(s);
+            for(var w = 0; w < words; w++) gen[w] &= opp[w];
+            shift(gen, s, tmp);
+            for(var w = 0; w < words; w++) moves[w] |= tmp[w] & mask[w] & ~(own[w] | opp[w]);
+        }
+    }
+
+    public int legalMoves(int player, int[] moves, int offset) {
+        legalMoveMask(player, acc);
+        var n = 0;
+        for(var w = 0; w < words; w++) {
+            var mask = acc[w];
+            while(mask != 0) {
+                moves[offset + n++] = (w << 6) + Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+            }
+        }
+        return n;
+    }
+
+    public int captureDirections(int square, int player) {
+        if(get(square) != 0) return 0;
+
+        var directions = 0;
+        for(var d = 0; d < 8; d++) {
+            if(flipsInDirection(square, player, d)) directions++;
+        }
+        return directions;
+    }
+
+    public int mobilityAfter(int square, int player) {
+        if(play(square, player, flipScratch, 0) == 0) return 0;
+        legalMoveMask(player == 1 ? 2 : 1, acc);
+        var n = 0;
+        for(var w = 0; w < words; w++) n += Long.bitCount(acc[w]);
+        undo(square, player, flipScratch, 0);
+        return n;
+    }
+
+    public int play(int square, int player) {
+        return play(square, player, null, 0);
+    }
+
+    public int play(int square, int player, long[] flipped, int offset) {
+        if(get(square) != 0) return 0;
+
+        for(var w = 0; w < words; w++) acc[w] = 0;
+        for(var d = 0; d < 8; d++) {
+            if(flipsInDirection(square, player, d)) {
+                for(var w = 0; w < words; w++) acc[w] |= gen[w];
+            }
+        }
+
+        var own = player == 1 ? black : white;
+        var opp = player == 1 ? white : black;
+        var turned = 0;
+        for(var w = 0; w < words; w++) {
+            own[w] |= acc[w];
+            opp[w] &= ~acc[w];
+            turned += Long.bitCount(acc[w]);
+        }
+        if(turned > 0) {
+            own[square >>> 6] |= 1L << square;
+            if(flipped != null) System.arraycopy(acc, 0, flipped, offset, words);
+        }
+        return turned;
+    }
+
+    public void undo(int square, int player, long[] flipped, int offset) {
+        var own = player == 1 ? black : white;
+        var opp = player == 1 ? white : black;
+        for(var w = 0; w < words; w++) {
+            own[w] &= ~flipped[offset + w];
+            opp[w] |= flipped[offset + w];
+        }
+        own[square >>> 6] &= ~(1L << square);
+    }
+
+    public int words() {
+        return words;
+    }
+
+    public IBoard copy() {
+        return new WideBitBoard(this);
+    }
+
+    /**
+     * Checks if the player captures tokens in direction d by putting a token on the square.
+     * If so, the captured tokens are left in gen.
+     */
+    private boolean flipsInDirection(int square, int player, int d) {
+        var own = player == 1 ? black : white;
+        var opp = player == 1 ? white : black;
+        var s = shifts[d];
+        var mask = masks[d];
+        for(var w = 0; w < words; w++) {
+            gen[w] = 0;
+            pro[w] = opp[w] & mask[w];
+        }
+        gen[square >>> 6] = 1L << square;
+        fill(s);
+        gen[square >>> 6] &= ~(1L << square);
+
+        shift(gen, s, tmp);
+        var closed = 0L;
+        for(var w = 0; w < words; w++) closed |= tmp[w] & own[w] & mask[w];
+        return closed != 0;
+    }
+
+    /**
+     * Kogge-Stone occluded fill: extends gen through the contiguous squares of pro in the direction s.
+     * Destroys pro.
+     */
+    private void fill(int s) {
+        for(var k = 0; k < fillSteps; k++) {
+            var step = s << k;
+            shift(gen, step, tmp);
+            for(var w = 0; w < words; w++) gen[w] |= pro[w] & tmp[w];
+            if(k + 1 < fillSteps) {
+                shift(pro, step, tmp);
+                for(var w = 0; w < words; w++) pro[w] &= tmp[w];
+            }
+        }
+    }
+
+    /**
+     * Shifts the bits of src by s (towards higher squares if s is positive) into dst, carrying bits
+     * between words. Bits shifted past either end are dropped.
+     */
+    private void shift(long[] src, int s, long[] dst) {
+        var n = s > 0 ? s : -s;
+        var ws = n >>> 6;
+        var bs = n & 63;
+        if(s > 0) {
+            for(var w = words - 1; w >= 0; w--) {
+                var lo = w - ws;
+                var v = lo >= 0 ? src[lo] << bs : 0;
+                if(bs != 0 && lo - 1 >= 0) v |= src[lo - 1] >>> (64 - bs);
+                dst[w] = v;
+            }
+        } else {
+            for(var w = 0; w < words; w++) {
+                var hi = w + ws;
+                var v = hi < words ? src[hi] >>> bs : 0;
+                if(bs != 0 && hi + 1 < words) v |= src[hi + 1] << (64 - bs);
+                dst[w] = v;
+            }
+        }
+    }
+}
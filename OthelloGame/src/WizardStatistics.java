@@ -0,0 +1,171 @@
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counters and timings of the actions of a MinMaxWizard, safe to update from several search threads at once.
+ *
+ * Every action has a fixed-size histogram of its times in nanoseconds: bucket k counts the calls that took from
+ * 2^k to 2^(k+1) - 1 nanoseconds (bucket 0 also counts 0). Memory does not grow with the number of calls, and
+ * recording is a few LongAdder increments, which do not contend between threads.
+ *
+ * Most actions take less than a microsecond, so reading the clock twice for each would slow the search down
+ * several times. Only one call in getSampleInterval() is timed, which is enough for the means and histograms.
+ */
+public class WizardStatistics {
+    public static final int BUCKETS = 48;   //Up to 2^48 ns, over three days
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    private static final MinMaxWizard.WizardAction[] ACTIONS = MinMaxWizard.WizardAction.values();
+
+    private final LongAdder[][] histograms = new LongAdder[ACTIONS.length][BUCKETS];
+    private final LongAdder[] nanos = new LongAdder[ACTIONS.length];
+    private final LongAdder[] calls = new LongAdder[ACTIONS.length];
+    private int sampleMask = DEFAULT_SAMPLE_INTERVAL - 1;
+
+    public WizardStatistics() {
+        for(var a = 0; a < ACTIONS.length; a++) {
+            for(var k = 0; k < BUCKETS; k++) histograms[a][k] = new LongAdder();
+            nanos[a] = new LongAdder();
+            calls[a] = new LongAdder();
+        }
+    }
+
+    /**
+     * Sets how often calls are timed: one in every interval calls, rounded down to a power of two. 1 times every call.
+     */
+    public void setSampleInterval(int interval) {
+        sampleMask = Integer.highestOneBit(Math.max(1, interval)) - 1;
+    }
+
+    public int getSampleInterval() {
+        return sampleMask + 1;
+    }
+
+    /**
+     * Returns true if the call about to be made should be timed. Random, since the actions of a search are called
+     * in a regular pattern that every n-th call could keep missing.
+     */
+    public boolean sample() {
+        return (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+    }
+
+    /**
+     * Counts a call of the action, without timing it.
+     */
+    public void count(MinMaxWizard.WizardAction action) {
+        calls[action.ordinal()].increment();
+    }
+
+    /**
+     * Records the time of a call of the action, normally one that sample chose. Does not count the call; see count.
+     */
+    public void time(MinMaxWizard.WizardAction action, long elapsedNanos) {
+        var a = action.ordinal();
+        histograms[a][bucket(elapsedNanos)].increment();
+        nanos[a].add(elapsedNanos);
+    }
+
+    /**
+     * Sets every counter and histogram to 0. Calls recorded at the same time on other threads may be lost or kept.
+     */
+    public void reset() {
+        for(var a = 0; a < ACTIONS.length; a++) {
+            for(var k = 0; k < BUCKETS; k++) histograms[a][k].reset();
+            nanos[a].reset();
+            calls[a].reset();
+        }
+    }
+
+    /**
+     * Returns a copy of the counters and histograms as they are now.
+     */
+    public Snapshot snapshot() {
+        var snapshot = new Snapshot();
+        for(var a = 0; a < ACTIONS.length; a++) {
+            for(var k = 0; k < BUCKETS; k++) snapshot.histograms[a][k] = histograms[a][k].sum();
+            snapshot.nanos[a] = nanos[a].sum();
+            snapshot.calls[a] = calls[a].sum();
+        }
+        return snapshot;
+    }
+
+    static int bucket(long nanos) {
+        return nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    /**
+     * The statistics at one point in time. Not changed by later calls.
+     */
+    public static final class Snapshot {
+        private final long[][] histograms = new long[ACTIONS.length][BUCKETS];
+        private final long[] nanos = new long[ACTIONS.length];
+        private final long[] calls = new long[ACTIONS.length];
+
+        private Snapshot() {}
+
+        /**
+         * Returns the number of calls of the action.
+         */
+        public long getCalls(MinMaxWizard.WizardAction action) {
+            return calls[action.ordinal()];
+        }
+
+        /**
+         * Returns the number of timed calls of the action.
+         */
+        public long getTimed(MinMaxWizard.WizardAction action) {
+            var timed = 0L;
+            for(var count : histograms[action.ordinal()]) timed += count;
+            return timed;
+        }
+
+        /**
+         * Returns the total time of the timed calls of the action in nanoseconds.
+         */
+        public long getNanos(MinMaxWizard.WizardAction action) {
+            return nanos[action.ordinal()];
+        }
+
+        /**
+         * Returns the average time of the timed calls of the action in nanoseconds, or 0 if none were timed.
+         */
+        public double getMeanNanos(MinMaxWizard.WizardAction action) {
+            var timed = getTimed(action);
+            return timed == 0 ? 0 : (double) getNanos(action) / timed;
+        }
+
+        /**
+         * Returns an upper bound of the given quantile (0 to 1) of the times of the action: the smallest 2^(k+1)
+         * such that at least that fraction of the timed calls took less, or 0 if none were timed.
+         */
+        public long getQuantileNanos(MinMaxWizard.WizardAction action, double quantile) {
+            var histogram = histograms[action.ordinal()];
+            var target = Math.ceil(quantile * getTimed(action));
+            var seen = 0L;
+            for(var k = 0; k < BUCKETS; k++) {
+                seen += histogram[k];
+                if(seen > 0 && seen >= target) return 1L << (k + 1);
+            }
+            return 0;
+        }
+
+        /**
+         * Returns a copy of the histogram of the action; see WizardStatistics.
+         */
+        public long[] getHistogram(MinMaxWizard.WizardAction action) {
+            return histograms[action.ordinal()].clone();
+        }
+
+        @Override
+        public String toString() {
+            var sb = new StringBuilder();
+            for(var action : ACTIONS) {
+                if(getCalls(action) == 0 && getTimed(action) == 0) continue;
+                sb.append(String.format(Locale.ROOT, "%-16s %,12d calls %,12.0f ns mean %,12d ns p50 %,12d ns p99%n",
+                        action, getCalls(action), getMeanNanos(action), getQuantileNanos(action, 0.5), getQuantileNanos(action, 0.99)));
+            }
+            return sb.toString();
+        }
+    }
+}
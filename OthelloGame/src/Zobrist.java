@@ -0,0 +1,46 @@
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of game states. The hash of a state is the xor of the key of every token
+ * on the board, plus SIDE if white is in turn, so it can be updated with a few xors when tokens are placed
+ * or turned. The keys are the same for every state of a given size, so hashes can be compared between states.
+ */
+public class Zobrist {
+    private static final Zobrist[] tables = new Zobrist[65];
+
+    final long[] black;     // Key for a black token on square
+    final long[] white;     // Key for a white token on square
+    final long[] flip;      // black[square] ^ white[square], the change when the token on square is turned
+    final long side;        // Key for white being in turn
+
+    private Zobrist(int size) {
+        var rnd = new SplittableRandom(0x5DEECE66DL + size);
+        black = new long[size * size];
+        white = new long[size * size];
+        flip = new long[size * size];
+        for(var sq = 0; sq < size * size; sq++) {
+            black[sq] = rnd.nextLong();
+            white[sq] = rnd.nextLong();
+            flip[sq] = black[sq] ^ white[sq];
+        }
+        side = rnd.nextLong();
+    }
+
+    /**
+     * Returns the keys for boards of the given size.
+     */
+    static Zobrist forSize(int size) {
+        if(size >= tables.length) return new Zobrist(size);
+        synchronized(tables) {
+            if(tables[size] == null) tables[size] = new Zobrist(size);
+            return tables[size];
+        }
+    }
+
+    /**
+     * Returns the key for a token of the given player (1 or 2) on the square.
+     */
+    long key(int player, int square) {
+        return player == 1 ? black[square] : white[square];
+    }
+}
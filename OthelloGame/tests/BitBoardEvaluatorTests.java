@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitBoardEvaluatorTests {
+    @Test
+    @DisplayName("Stable tokens are never turned, whatever is played afterwards")
+    public void stable_Given_Random_Games_Are_Never_Turned() {
+        var rnd = new Random(15);
+        for(var game = 0; game < 200; game++) {
+            var gs = randomState(rnd, 20 + rnd.nextInt(40));
+            var stableBlack = BitBoardEvaluator.stable(gs.getTokenMask(1), gs.getTokenMask(2));
+            var stableWhite = BitBoardEvaluator.stable(gs.getTokenMask(2), gs.getTokenMask(1));
+            for(var rest = 0; rest < 5; rest++) {
+                var future = new GameState(gs);
+                while(!future.isFinished()) {
+                    playRandom(future, rnd);
+                    assertEquals(stableBlack, future.getTokenMask(1) & stableBlack);
+                    assertEquals(stableWhite, future.getTokenMask(2) & stableWhite);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Corners and full boards are stable")
+    public void stable_Given_Corners_And_Full_Board_Returns_Them() {
+        var corners = 1L | 1L << 7 | 1L << 56 | 1L << 63;
+        assertEquals(corners, BitBoardEvaluator.stable(corners, 0x0000001818000000L));
+        var black = 0x5555555555555555L;
+        assertEquals(black, BitBoardEvaluator.stable(black, ~black));
+        assertEquals(~black, BitBoardEvaluator.stable(~black, black));
+        assertEquals(0, BitBoardEvaluator.stable(0x0000000810000000L, 0x0000001008000000L));
+    }
+
+    @Test
+    @DisplayName("neighbours gives the squares next to the mask, like a loop over the board")
+    public void neighbours_Given_Random_Masks_Matches_Loop() {
+        var rnd = new Random(16);
+        for(var i = 0; i < 1000; i++) {
+            var mask = rnd.nextLong() & rnd.nextLong();
+            var expected = 0L;
+            for(var sq = 0; sq < 64; sq++) {
+                for(var dc = -1; dc <= 1; dc++) {
+                    for(var dr = -1; dr <= 1; dr++) {
+                        int c = sq / 8 + dc, r = sq % 8 + dr;
+                        if((dc != 0 || dr != 0) && c >= 0 && c < 8 && r >= 0 && r < 8 && (mask & 1L << (c * 8 + r)) != 0) expected |= 1L << sq;
+                    }
+                }
+            }
+            assertEquals(expected, BitBoardEvaluator.neighbours(mask));
+        }
+    }
+
+    @Test
+    @DisplayName("The value for one player is minus the value for the other")
+    public void evaluate_Given_Both_Players_Returns_Opposite_Values() {
+        var rnd = new Random(17);
+        var evaluator = new BitBoardEvaluator();
+        var mobilityOnly = new BitBoardEvaluator(1, 0, 0, 0);
+        for(var i = 0; i < 200; i++) {
+            var gs = randomState(rnd, rnd.nextInt(60));
+            assertEquals(-evaluator.evaluate(gs, 1), evaluator.evaluate(gs, 2));
+            var moves = new int[64];
+            var own = gs.legalMoves(moves, 0);
+            gs.changePlayer();
+            assertEquals(own - gs.legalMoves(moves, 0), mobilityOnly.evaluate(gs, 3 - gs.getPlayerInTurn()));
+        }
+    }
+
+    @Test
+    @DisplayName("The wizard finds a legal move with the bitboard evaluator, and refuses other sizes")
+    public void alphaBetaSearch_with_bitboard_evaluator_Returns_legal_move() {
+        var gs = new GameState(8, 1);
+        var wizard = new MinMaxWizardWithPruning(5);
+        wizard.setEvaluator(new BitBoardEvaluator());
+        for(var ply = 0; ply < 10; ply++) {
+            var pos = wizard.alphaBetaSearch(gs);
+            assertTrue(gs.legalMoves().contains(pos));
+            gs.insertToken(pos);
+        }
+        assertThrows(IllegalArgumentException.class, () -> wizard.alphaBetaSearch(new GameState(10, 1)));
+    }
+
+    private GameState randomState(Random rnd, int plies) {
+        var gs = new GameState(8, 1);
+        for(var ply = 0; ply < plies && !gs.isFinished(); ply++) playRandom(gs, rnd);
+        return gs;
+    }
+
+    private void playRandom(GameState gs, Random rnd) {
+        var moves = new int[64];
+        var n = gs.legalMoves(moves, 0);
+        if(n == 0) gs.changePlayer();
+        else gs.insertToken(moves[rnd.nextInt(n)]);
+    }
+}
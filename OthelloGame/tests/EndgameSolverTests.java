@@ -0,0 +1,180 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EndgameSolverTests {
+    @Test
+    @DisplayName("solve gives the same final lead as searching every line, and a move that reaches it")
+    public void solve_Given_Random_Endgames_Matches_Full_Search() {
+        var rnd = new Random(12);
+        var solver = new EndgameSolver();
+        for(var size : new int[] {6, 8}) {
+            for(var game = 0; game < 20; game++) {
+                var gs = randomState(size, 9, rnd);
+                var pos = solver.solve(gs);
+                var expected = fullSearch(gs);
+                assertEquals(expected, solver.getScore());
+                if(pos.col >= 0) {
+                    var after = new GameState(gs);
+                    assertTrue(after.insertToken(pos));
+                    var sign = after.getPlayerInTurn() == gs.getPlayerInTurn() ? 1 : -1;
+                    assertEquals(expected, sign * fullSearch(after));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("solveWinLossDraw gives the sign of the final lead")
+    public void solveWinLossDraw_Given_Random_Endgames_Matches_Sign_Of_Full_Search() {
+        var rnd = new Random(13);
+        var solver = new EndgameSolver();
+        for(var game = 0; game < 30; game++) {
+            var gs = randomState(6, 8, rnd);
+            solver.solveWinLossDraw(gs);
+            assertEquals(Integer.signum(fullSearch(gs)), solver.getScore());
+        }
+    }
+
+    @Test
+    @DisplayName("A solver with symmetric keys gives the same scores and legal moves")
+    public void solve_with_symmetric_keys_Matches_Plain_Keys() {
+        var rnd = new Random(15);
+        var plain = new EndgameSolver();
+        var symmetric = new EndgameSolver();
+        symmetric.setSymmetricKeys(true);
+        for(var size : new int[] {6, 8}) {
+            for(var game = 0; game < 10; game++) {
+                var gs = randomState(size, 12, rnd);
+                plain.solve(gs);
+                var pos = symmetric.solve(gs);
+                assertEquals(plain.getScore(), symmetric.getScore());
+                if(pos.col >= 0) assertTrue(new GameState(gs).insertToken(pos));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("On boards symmetric about the diagonal, whose mirrored moves lead to mirrored states, symmetric keys search fewer nodes")
+    public void solve_with_symmetric_keys_Given_Symmetric_Boards_Searches_fewer_nodes() {
+        var rnd = new Random(15);
+        var plain = new EndgameSolver();
+        var symmetric = new EndgameSolver();
+        symmetric.setSymmetricKeys(true);
+        long plainNodes = 0, symmetricNodes = 0, plainHits = 0, symmetricHits = 0;
+        for(var size : new int[] {6, 8}) {
+            for(var game = 0; game < 10; game++) {
+                var gs = symmetricState(size, rnd);
+                plain.solve(gs);
+                symmetric.solve(gs);
+                assertEquals(plain.getScore(), symmetric.getScore());
+                plainNodes += plain.getStatistics().get("nodes");
+                symmetricNodes += symmetric.getStatistics().get("nodes");
+                plainHits += plain.getStatistics().get("hits");
+                symmetricHits += symmetric.getStatistics().get("hits");
+            }
+        }
+        System.out.println("Plain keys: " + plainNodes + " nodes, " + plainHits + " hits; symmetric keys: "
+                + symmetricNodes + " nodes, " + symmetricHits + " hits");
+        assertTrue(symmetricNodes < plainNodes); //Hits high up cut off whole subtrees, so there are fewer hits below
+    }
+
+    @Test
+    @DisplayName("Solving does not change the given state")
+    public void solve_Given_State_Leaves_It_Unchanged() {
+        var gs = randomState(8, 12, new Random(14));
+        var board = gs.getBoard();
+        var hash = gs.getHash();
+        var solver = new EndgameSolver();
+        solver.solve(gs);
+        assertArrayEquals(board, gs.getBoard());
+        assertEquals(hash, gs.getHash());
+        System.out.println("Nodes per second: " + (long) solver.getNodesPerSecond() + ", " + solver.getStatistics());
+    }
+
+    @Test
+    @DisplayName("A solve with a deadline gives up with null when it expires, and solves like solve otherwise")
+    public void solve_Given_Deadline_Returns_null_when_expired() {
+        var solver = new EndgameSolver();
+        var gs = randomState(8, 26, new Random(16));
+        var board = gs.getBoard();
+        var start = System.currentTimeMillis();
+        assertNull(solver.solve(gs, new Deadline(50)));
+        assertTrue(System.currentTimeMillis() - start < 1_000);
+        assertArrayEquals(board, gs.getBoard());
+
+        gs = randomState(8, 10, new Random(17));
+        var expected = solver.solve(gs);
+        var score = solver.getScore();
+        assertEquals(expected, solver.solve(gs, new Deadline(60_000)));
+        assertEquals(score, solver.getScore());
+    }
+
+    @Test
+    @DisplayName("canSolve is true at the threshold and false above it")
+    public void canSolve_Given_Threshold_Compares_Empty_Squares() {
+        var gs = randomState(8, 10, new Random(15));
+        assertTrue(new EndgameSolver(EndgameSolver.empties(gs)).canSolve(gs));
+        assertFalse(new EndgameSolver(EndgameSolver.empties(gs) - 1).canSolve(gs));
+    }
+
+    /**
+     * Returns a random endgame with 9 to 12 empty squares whose board is its own mirror image about the diagonal
+     * (col and row swapped), with at least two moves for the player in turn.
+     */
+    private GameState symmetricState(int size, Random rnd) {
+        var moves = new int[size * size];
+        while(true) {
+            var random = randomState(size, 12, rnd);
+            var board = random.getBoard();
+            for(var col = 0; col < size; col++) {
+                for(var row = 0; row < col; row++) board[row][col] = board[col][row];
+            }
+            var gs = new GameState(board, random.getPlayerInTurn());
+            var empties = EndgameSolver.empties(gs);
+            if(empties >= 9 && empties <= 12 && gs.expand(moves, 0) > 1) return gs;
+        }
+    }
+
+    /**
+     * Plays random moves on a fresh board until at most the given number of squares are empty.
+     */
+    private GameState randomState(int size, int empties, Random rnd) {
+        while(true) {
+            var gs = new GameState(size, 1);
+            var moves = new int[size * size];
+            while(EndgameSolver.empties(gs) > empties) {
+                var n = gs.expand(moves, 0);
+                if(n == GameState.FINISHED) break;
+                if(n == 0) gs.changePlayer();
+                else gs.insertToken(moves[rnd.nextInt(n)]);
+            }
+            if(gs.expand(moves, 0) != GameState.FINISHED) return gs;
+        }
+    }
+
+    /**
+     * The final lead of the player in turn, found by playing out every line without pruning.
+     */
+    private int fullSearch(GameState s) {
+        var moves = new int[s.getSize() * s.getSize()];
+        var n = s.expand(moves, 0);
+        var player = s.getPlayerInTurn();
+        if(n == GameState.FINISHED) return s.getTokens(player) - s.getTokens(3 - player);
+        if(n == 0) {
+            var passed = new GameState(s);
+            passed.changePlayer();
+            return -fullSearch(passed);
+        }
+        var best = Integer.MIN_VALUE;
+        for(var i = 0; i < n; i++) {
+            var child = new GameState(s);
+            child.insertToken(moves[i]);
+            best = Math.max(best, -fullSearch(child));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,384 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStateTests {
+    @Test
+    @DisplayName("Bitboard GameState agrees with the array implementation over random 8x8 games")
+    public void GameState_Given_Random_Games_on_8x8_Matches_Reference() {
+        playAgainstReference(8, 200, new Random(8));
+    }
+
+    @Test
+    @DisplayName("GameState agrees with the array implementation over random 4x4 and 6x6 games")
+    public void GameState_Given_Random_Games_on_Small_Boards_Matches_Reference() {
+        playAgainstReference(4, 200, new Random(4));
+        playAgainstReference(6, 200, new Random(6));
+    }
+
+    @Test
+    @DisplayName("GameState agrees with the array implementation over random 10x10, 12x12 and 16x16 games")
+    public void GameState_Given_Random_Games_on_Large_Boards_Matches_Reference() {
+        playAgainstReference(10, 50, new Random(10));
+        playAgainstReference(12, 20, new Random(12));
+        playAgainstReference(16, 10, new Random(16));
+    }
+
+    @Test
+    @DisplayName("WideBitBoard and BitBoard agree on 8x8 boards")
+    public void WideBitBoard_Given_8x8_Matches_BitBoard() {
+        var rnd   = new Random(1);
+        var moves = new int[64];
+        var wideMoves = new int[64];
+
+        for(var g = 0; g < 100; g++) {
+            IBoard bits = new BitBoard();
+            IBoard wide = new WideBitBoard(8);
+            for(var sq : new int[] {27, 36}) { bits.set(sq, 1); wide.set(sq, 1); }
+            for(var sq : new int[] {28, 35}) { bits.set(sq, 2); wide.set(sq, 2); }
+
+            var player = 1;
+            var passes = 0;
+            while(passes < 2) {
+                var n = bits.legalMoves(player, moves, 0);
+                assertEquals(n, wide.legalMoves(player, wideMoves, 0));
+                for(var i = 0; i < n; i++) {
+                    assertEquals(moves[i], wideMoves[i]);
+                    assertEquals(bits.captureDirections(moves[i], player), wide.captureDirections(moves[i], player));
+                }
+
+                if(n == 0) passes++;
+                else {
+                    passes = 0;
+                    var sq = moves[rnd.nextInt(n)];
+                    assertEquals(bits.play(sq, player), wide.play(sq, player));
+                }
+                for(var sq = 0; sq < 64; sq++) assertEquals(bits.get(sq), wide.get(sq));
+                player = 3 - player;
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("legalMoves into an array gives every legal square once, in increasing order, after the offset")
+    public void legalMoves_Given_Array_Returns_Each_Square_Once() {
+        var rnd = new Random(9);
+        for(var size : new int[] {8, 10}) {
+            var gs = new GameState(size, 1);
+            var moves = new int[size * size + 3];
+            while(!gs.isFinished()) {
+                var n = gs.legalMoves(moves, 3);
+                var positions = gs.legalMoves();
+                assertEquals(positions.stream().distinct().count(), n);
+                for(var i = 3; i < 3 + n; i++) {
+                    if(i > 3) assertTrue(moves[i - 1] < moves[i]);
+                    assertTrue(positions.contains(new Position(moves[i] / size, moves[i] % size)));
+                }
+                if(n == 0) gs.changePlayer();
+                else assertTrue(gs.insertToken(moves[3 + rnd.nextInt(n)]));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Token counts and weight sum stay equal to a recount through moves and unmoves")
+    public void getWeightSum_Given_Random_Games_Matches_Recount() {
+        var rnd = new Random(10);
+        for(var size : new int[] {6, 8, 10}) {
+            var weights = PositionalWeights.forSize(size);
+            for(var g = 0; g < 20; g++) {
+                var gs = new GameState(size, 1);
+                var inPlace = new GameState(size, 1);
+                var moves = new int[size * size];
+                while(!gs.isFinished()) {
+                    var n = gs.legalMoves(moves, 0);
+                    if(n == 0) { gs.changePlayer(); inPlace.makePass(); continue; }
+                    var square = moves[rnd.nextInt(n)];
+                    gs.insertToken(square);
+                    inPlace.makeMove(square);
+                    assertEvaluationMatchesRecount(gs, weights);
+                    assertEvaluationMatchesRecount(inPlace, weights);
+                }
+                while(inPlace.getUndoDepth() > 0) {
+                    inPlace.unmakeMove();
+                    assertEvaluationMatchesRecount(inPlace, weights);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The 8x8 weights are the table the wizard used to have, and can be replaced per size")
+    public void PositionalWeights_Given_Size_Returns_Table() {
+        assertArrayEquals(new int[]
+                {   6, -3, 2, 2, 2, 2, -3, 6,
+                    -3, -4, -1, -1, -1, -1, -4, -3,
+                    2, -1, 1, 0, 0, 1, -1, 2,
+                    2, -1, 0, 1, 1, 0, -1, 2,
+                    2, -1, 0, 1, 1, 0, -1, 2,
+                    2, -1, 1, 0, 0, 1, -1, 2,
+                    -3, -4, -1, -1, -1, -1, -4, -3,
+                    6, -3, 2, 2, 2, 2, -3, 6
+                }, PositionalWeights.forSize(8));
+
+        var old = PositionalWeights.forSize(6);
+        var custom = new int[36];
+        custom[0] = 100; //Corner, empty at the start
+        custom[14] = 7;  //Black start square
+        PositionalWeights.setForSize(6, custom);
+        try {
+            var gs = new GameState(6, 1);
+            assertEquals(7, gs.getWeightSum());
+            assertThrows(IllegalArgumentException.class, () -> PositionalWeights.setForSize(6, new int[35]));
+        } finally {
+            PositionalWeights.setForSize(6, old);
+        }
+    }
+
+    @Test
+    @DisplayName("expand tells finished and pass states apart from one move generation per side")
+    public void expand_Given_States_Returns_Moves_Pass_Or_Finished() {
+        var moves = new int[16];
+        var gs = new GameState(4, 1);
+        assertFalse(gs.isFinished());
+        assertEquals(4, gs.expand(moves, 0));
+        assertEquals(4, gs.legalMoves(moves, 0));
+        assertEquals(4, gs.legalMoves().size()); //Every opening move captures in one direction
+        assertEquals(1, gs.getMoveGenerations());
+
+        gs.insertToken(moves[0]);
+        gs.expand(moves, 0);
+        assertEquals(2, gs.getMoveGenerations());
+
+        var pass = new GameState(new int[][] { //White cannot flank the black corner, black can take the white token
+                {1,2,0,0},
+                {0,0,0,0},
+                {0,0,0,0},
+                {0,0,0,0},
+        }, 2);
+        assertEquals(0, pass.expand(moves, 0));
+        assertEquals(2, pass.getPlayerInTurn());
+        assertFalse(pass.isFinished());
+        assertEquals(2, pass.getMoveGenerations());
+
+        var finished = new GameState(new int[][] {
+                {1,1,1,0},
+                {1,1,1,0},
+                {1,1,1,0},
+                {0,0,0,0},
+        }, 2);
+        assertEquals(GameState.FINISHED, finished.expand(moves, 0));
+        assertEquals(2, finished.getPlayerInTurn());
+        assertTrue(finished.isFinished());
+    }
+
+    @Test
+    @DisplayName("countTokens counts the tokens of a board given as an array")
+    public void countTokens_Given_Board_Returns_Token_Counts() {
+        var gs = new GameState(new int[][] {
+                {1,2,2,0},
+                {2,1,1,2},
+                {2,2,2,1},
+                {2,2,2,2},
+        }, 1);
+
+        assertArrayEquals(new int[] {4, 11}, gs.countTokens());
+    }
+
+    @Test
+    @DisplayName("The copy constructor gives an independent game state")
+    public void GameState_Copy_Is_Independent() {
+        var gs   = new GameState(8, 1);
+        var copy = new GameState(gs);
+
+        assertTrue(copy.insertToken(copy.legalMoves().get(0)));
+        assertArrayEquals(new int[] {2, 2}, gs.countTokens());
+        assertEquals(1, gs.getPlayerInTurn());
+        assertEquals(2, copy.getPlayerInTurn());
+    }
+
+    @Test
+    @DisplayName("getBoard returns a copy that does not change the game state")
+    public void getBoard_Returns_Copy() {
+        var gs = new GameState(8, 1);
+        gs.getBoard()[0][0] = 1;
+
+        assertEquals(0, gs.getBoard()[0][0]);
+    }
+
+    @Test
+    @DisplayName("unmakeMove takes back every move and pass made with makeMove and makePass")
+    public void unmakeMove_Restores_Previous_States() {
+        for(var size : new int[] {6, 8, 10}) {
+            var rnd    = new Random(size);
+            var gs     = new GameState(size, 1);
+            var boards = new ArrayList<int[][]>();
+            var players = new ArrayList<Integer>();
+
+            while(!gs.isFinished()) {
+                boards.add(gs.getBoard());
+                players.add(gs.getPlayerInTurn());
+
+                var moves = gs.legalMoves();
+                if(moves.isEmpty()) gs.makePass();
+                else {
+                    var move = moves.get(rnd.nextInt(moves.size()));
+                    var expected = new GameState(gs);
+                    assertTrue(gs.makeMove(move));
+                    expected.insertToken(move);
+                    assertArrayEquals(expected.getBoard(), gs.getBoard());
+                }
+            }
+            assertFalse(gs.makeMove(new Position(-1, 0)));
+
+            for(var i = boards.size() - 1; i >= 0; i--) {
+                gs.unmakeMove();
+                assertArrayEquals(boards.get(i), gs.getBoard());
+                assertEquals((int) players.get(i), gs.getPlayerInTurn());
+            }
+            assertEquals(0, gs.getUndoDepth());
+            assertThrows(IllegalStateException.class, gs::unmakeMove);
+
+            var legal = new int[size * size];
+            gs.legalMoves(legal, 0);
+            assertFalse(gs.makeMove(size * size + legal[0])); //Would wrap around to the legal square on a bitboard
+            assertFalse(gs.makeMove(-1));
+            assertEquals(0, gs.getUndoDepth());
+        }
+    }
+
+    @Test
+    @DisplayName("The hash kept up to date by insertToken and makeMove equals the hash of the same state built from scratch")
+    public void getHash_Given_Random_Games_Matches_Fresh_State() {
+        for(var size : new int[] {4, 8, 10}) {
+            var rnd      = new Random(size);
+            var inserted = new GameState(size, 1);
+            var made     = new GameState(size, 1);
+            var hashes   = new ArrayList<Long>();
+
+            while(!inserted.isFinished()) {
+                assertEquals(new GameState(inserted.getBoard(), inserted.getPlayerInTurn()).getHash(), inserted.getHash());
+                assertEquals(inserted.getHash(), made.getHash());
+                hashes.add(made.getHash());
+
+                var moves = inserted.legalMoves();
+                if(moves.isEmpty()) {
+                    inserted.changePlayer();
+                    made.makePass();
+                } else {
+                    var move = moves.get(rnd.nextInt(moves.size()));
+                    inserted.insertToken(move);
+                    made.makeMove(move);
+                }
+            }
+
+            for(var i = hashes.size() - 1; i >= 0; i--) {
+                made.unmakeMove();
+                assertEquals((long) hashes.get(i), made.getHash());
+            }
+        }
+        assertNotEquals(new GameState(8, 1).getHash(), new GameState(8, 2).getHash());
+    }
+
+    //Helper tools for testing.
+
+    /**
+     * Plays random games and checks legalMoves, insertToken, countTokens and isFinished against an
+     * independent int[][] implementation of the rules.
+     */
+    void assertEvaluationMatchesRecount(GameState gs, int[] weights) {
+        var board = gs.getBoard();
+        var size = board.length;
+        var tokens = new int[3];
+        var weightSum = 0;
+        for(var sq = 0; sq < size * size; sq++) {
+            var player = board[sq / size][sq % size];
+            tokens[player]++;
+            if(player == 1) weightSum += weights[sq];
+            if(player == 2) weightSum -= weights[sq];
+        }
+        assertEquals(tokens[1], gs.getTokens(1));
+        assertEquals(tokens[2], gs.getTokens(2));
+        assertEquals(weightSum, gs.getWeightSum());
+    }
+
+    void playAgainstReference(int size, int games, Random rnd) {
+        for(var g = 0; g < games; g++) {
+            var gs  = new GameState(size, 1);
+            var ref = gs.getBoard();
+            var player = 1;
+
+            while(true) {
+                var expected = referenceLegalMoves(ref, player);
+                assertEquals(expected, gs.legalMoves());
+                assertArrayEquals(referenceCount(ref), gs.countTokens());
+
+                var finished = expected.isEmpty() && referenceLegalMoves(ref, 3 - player).isEmpty();
+                assertEquals(finished, gs.isFinished());
+                if(finished) break;
+
+                if(expected.isEmpty()) {
+                    gs.changePlayer();
+                    player = 3 - player;
+                    continue;
+                }
+
+                var move = expected.get(rnd.nextInt(expected.size()));
+                assertFalse(gs.insertToken(new Position(move.col, move.row - size)));
+                assertTrue(gs.insertToken(move));
+                referenceInsert(ref, move, player);
+                player = 3 - player;
+
+                assertEquals(player, gs.getPlayerInTurn());
+                assertArrayEquals(ref, gs.getBoard());
+            }
+        }
+    }
+
+    ArrayList<Position> referenceLegalMoves(int[][] board, int player) {
+        var moves = new ArrayList<Position>();
+        for(var i = 0; i < board.length; i++)
+            for(var j = 0; j < board.length; j++)
+                if(board[i][j] == 0)
+                    for(var dx = -1; dx <= 1; dx++)
+                        for(var dy = -1; dy <= 1; dy++)
+                            if(referenceCaptures(board, i, j, dx, dy, player) > 0) moves.add(new Position(i, j));
+        return moves;
+    }
+
+    void referenceInsert(int[][] board, Position p, int player) {
+        for(var dx = -1; dx <= 1; dx++) {
+            for(var dy = -1; dy <= 1; dy++) {
+                var n = referenceCaptures(board, p.col, p.row, dx, dy, player);
+                for(var k = 1; k <= n; k++) board[p.col + dx * k][p.row + dy * k] = player;
+            }
+        }
+        board[p.col][p.row] = player;
+    }
+
+    int referenceCaptures(int[][] board, int col, int row, int dx, int dy, int player) {
+        if(dx == 0 && dy == 0) return 0;
+        var size = board.length;
+        var n = 0;
+        var c = col + dx;
+        var r = row + dy;
+        while(0 <= c && c < size && 0 <= r && r < size && board[c][r] == 3 - player) {
+            c += dx;
+            r += dy;
+            n++;
+        }
+        return (0 <= c && c < size && 0 <= r && r < size && board[c][r] == player) ? n : 0;
+    }
+
+    int[] referenceCount(int[][] board) {
+        var t = new int[2];
+        for(var col : board)
+            for(var v : col)
+                if(v != 0) t[v - 1]++;
+        return t;
+    }
+}
@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MctsAITests {
+    @Test
+    @DisplayName("MctsAI with two threads plays legal moves on bitboard and other sizes, and beats RandomAI")
+    public void MctsAI_Given_Games_vs_RandomAI_Wins() {
+        for(var size : new int[] {8, 6, 10}) {
+            var wins = 0;
+            var playoutsPerSecond = 0.0;
+            for(var game = 0; game < 2; game++) {
+                var ai = new MctsAI(30);
+                ai.setThreads(2);
+                var player = 1 + game;
+                var s = new GameState(size, 1);
+                while(!s.isFinished()) {
+                    if(s.legalMoves().isEmpty()) {
+                        s.changePlayer();
+                        continue;
+                    }
+                    Position move;
+                    if(s.getPlayerInTurn() == player) {
+                        move = ai.decideMove(s);
+                        playoutsPerSecond = Math.max(playoutsPerSecond, ai.getPlayoutsPerSecond());
+                    } else move = new RandomAI().decideMove(s);
+                    assertTrue(s.insertToken(move));
+                }
+                ai.close();
+                var tokens = s.countTokens();
+                if(tokens[player - 1] > tokens[2 - player]) wins++;
+            }
+            System.out.println(size + "x" + size + ": up to " + (long) playoutsPerSecond + " playouts/s");
+            assertTrue(wins >= 1);
+        }
+    }
+
+    @Test
+    @DisplayName("A full node pool stops the tree from growing, but the search goes on and plays a legal move")
+    public void decideMove_Given_Small_Node_Pool_Plays_legal_move() {
+        var ai = new MctsAI(50, 16);
+        ai.setThreads(1);
+        var s = new GameState(8, 1);
+        for(var move = 0; move < 2; move++) {
+            assertTrue(s.legalMoves().contains(ai.decideMove(s)));
+            var statistics = ai.getStatistics();
+            assertTrue(statistics.get("nodes") <= 16);  //The nodes claimed, which never pass the capacity
+            assertTrue(statistics.get("playouts") > 100);
+            assertTrue(ai.getPlayoutsPerSecond() > 0);
+        }
+        var tiny = new MctsAI(50, 2);
+        assertTrue(s.legalMoves().contains(tiny.decideMove(s)));
+        assertTrue(tiny.getStatistics().get("nodes") <= 2);
+    }
+
+    @Test
+    @DisplayName("moveNow ends a long search with a legal move, after progress was reported")
+    public void decideMove_Given_moveNow_Returns_legal_move() throws InterruptedException {
+        var ai = new MctsAI(60_000);
+        ai.setThreads(1);
+        var reports = new ArrayList<SearchProgress>();
+        ai.setProgressListener(reports::add);
+        var stopper = new Thread(() -> {
+            try {
+                Thread.sleep(400);
+            } catch(InterruptedException ignored) {}
+            ai.moveNow();
+        });
+        stopper.start();
+        var s = new GameState(8, 1);
+        var start = System.currentTimeMillis();
+        var move = ai.decideMove(s);
+        stopper.join();
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+        assertTrue(s.legalMoves().contains(move));
+        assertFalse(reports.isEmpty());
+        System.out.println("Last report: " + reports.get(reports.size() - 1));
+    }
+}
@@ -365,17 +365,18 @@ public class MinMaxWizardTests {
     public void getEventLog_returns_map_of_times() {
         var gs  = new GameState(6, 1);
         var mmw = new MinMaxWizard();
+        mmw.getDiagnostics().setSampleInterval(1); //Time every call, so the times are totals
 
         gs.insertToken(mmw.minMaxDecision(gs));
 
-        var log = mmw.getEventTimeLog();
+        var log = mmw.getDiagnostics().snapshot();
 
-        System.out.println("Action time: " + log.get(MinMaxWizard.WizardAction.ACTION).stream().mapToLong(v -> v).sum() + " ms");
-        System.out.println("Utility time: " + log.get(MinMaxWizard.WizardAction.UTILITY).stream().mapToLong(v -> v).sum() + " ms");
-        System.out.println("Min-value time: " + log.get(MinMaxWizard.WizardAction.MIN_VALUE).stream().mapToLong(v -> v).sum() + " ms");
-        System.out.println("Max-value time: " + log.get(MinMaxWizard.WizardAction.MAX_VALUE).stream().mapToLong(v -> v).sum() + " ms");
-        System.out.println("Terminal time: " + log.get(MinMaxWizard.WizardAction.TERMINAL).stream().mapToLong(v -> v).sum() + " ms");
-        System.out.println("Result time: " + log.get(MinMaxWizard.WizardAction.RESULT).stream().mapToLong(v -> v).sum() + " ms");
+        System.out.println("Action time: " + log.getNanos(MinMaxWizard.WizardAction.ACTION) / 1000000 + " ms");
+        System.out.println("Utility time: " + log.getNanos(MinMaxWizard.WizardAction.UTILITY) / 1000000 + " ms");
+        System.out.println("Min-value time: " + log.getNanos(MinMaxWizard.WizardAction.MIN_VALUE) / 1000000 + " ms");
+        System.out.println("Max-value time: " + log.getNanos(MinMaxWizard.WizardAction.MAX_VALUE) / 1000000 + " ms");
+        System.out.println("Terminal time: " + log.getNanos(MinMaxWizard.WizardAction.TERMINAL) / 1000000 + " ms");
+        System.out.println("Result time: " + log.getNanos(MinMaxWizard.WizardAction.RESULT) / 1000000 + " ms");
 
 
         assertFalse(true);
@@ -3,6 +3,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -261,6 +263,254 @@ public class MinMaxWizardWithPruningTests {
 
     }
 
+    @Test
+    @DisplayName("Searching in place with makeMove/unmakeMove picks the same moves as copying the state")
+    public void alphaBetaSearch_in_place_Matches_copying_search() {
+        var rnd = new Random(3);
+        for(var i = 0; i < 20; i++) {
+            var gs = new GameState(8, 1);
+            for(var m = rnd.nextInt(30); m > 0 && !gs.isFinished(); m--) {
+                if(gs.legalMoves().isEmpty()) gs.changePlayer();
+                gs.insertToken(new RandomAI().decideMove(gs));
+            }
+            if(gs.isFinished()) continue;
+            if(gs.legalMoves().isEmpty()) gs.changePlayer();
+
+            var copying = new MinMaxWizardWithPruning(4).alphaBetaSearch(gs);
+            var inPlace = new MinMaxWizardWithPruning(4, true).alphaBetaSearch(gs);
+            assertEquals(copying, inPlace);
+        }
+    }
+
+    @Test
+    @DisplayName("iterativeDeepening returns a legal move within its time budget and completes at least depth 1")
+    public void iterativeDeepening_Returns_legal_move_in_time() {
+        for(var size : new int[] {8, 10}) {
+            var gs  = new GameState(size, 1);
+            var mmw = new MinMaxWizardWithPruning();
+
+            var start = System.currentTimeMillis();
+            var move  = mmw.iterativeDeepening(gs, 250);
+            var timeTaken = System.currentTimeMillis() - start;
+
+            System.out.println("Size " + size + ": depth " + mmw.getCompletedDepth() + " in " + timeTaken + " ms");
+            assertTrue(timeTaken < 500);
+            assertTrue(mmw.getCompletedDepth() >= 1);
+            assertTrue(gs.insertToken(move));
+        }
+    }
+
+    @Test
+    @DisplayName("Move ordering searches fewer nodes and finds equally good moves")
+    public void alphaBetaSearch_with_move_ordering_Searches_fewer_nodes() {
+        var rnd = new Random(11);
+        var orderedNodes = 0L;
+        var unorderedNodes = 0L;
+        for(var i = 0; i < 6; i++) {
+            var gs = new GameState(8, 1);
+            for(var j = 0; j < 10 + i && !gs.isFinished(); j++) {
+                var moves = gs.legalMoves();
+                if(moves.isEmpty()) { gs.changePlayer(); continue; }
+                gs.insertToken(moves.get(rnd.nextInt(moves.size())));
+            }
+            if(gs.isFinished() || gs.legalMoves().isEmpty()) continue;
+
+            var ordered = new MinMaxWizardWithPruning(6, true, 0);
+            var unordered = new MinMaxWizardWithPruning(6, true, 0);
+            unordered.setMoveOrdering(false);
+            ordered.alphaBetaSearch(gs);
+            unordered.alphaBetaSearch(gs);
+            orderedNodes += ordered.getStatistics().get("nodes");
+            unorderedNodes += unordered.getStatistics().get("nodes");
+        }
+        System.out.println("Nodes without ordering: " + unorderedNodes + ", with ordering: " + orderedNodes);
+        assertTrue(orderedNodes < unorderedNodes);
+    }
+
+    @Test
+    @DisplayName("Searching with several threads plays the same moves as one thread")
+    public void alphaBetaSearch_with_threads_Matches_single_thread() {
+        var rnd = new Random(5);
+        for(var size : new int[] {8, 10}) {
+            for(var i = 0; i < 3; i++) {
+                var gs = new GameState(size, 1);
+                for(var j = 0; j < 8 + 3 * i && !gs.isFinished(); j++) {
+                    var moves = gs.legalMoves();
+                    if(moves.isEmpty()) { gs.changePlayer(); continue; }
+                    gs.insertToken(moves.get(rnd.nextInt(moves.size())));
+                }
+                if(gs.isFinished() || gs.legalMoves().isEmpty()) continue;
+
+                var serial = new MinMaxWizardWithPruning(5, true);
+                var parallel = new MinMaxWizardWithPruning(5, true);
+                serial.setThreads(1);
+                parallel.setThreads(4);
+                assertEquals(serial.alphaBetaSearch(gs), parallel.alphaBetaSearch(gs));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Principal variation search finds the same moves with fewer nodes")
+    public void alphaBetaSearch_with_pvs_Searches_fewer_nodes() {
+        var rnd = new Random(7);
+        var pvsNodes = 0L;
+        var plainNodes = 0L;
+        for(var i = 0; i < 6; i++) {
+            var gs = new GameState(8, 1);
+            for(var j = 0; j < 6 + 3 * i && !gs.isFinished(); j++) {
+                var moves = gs.legalMoves();
+                if(moves.isEmpty()) { gs.changePlayer(); continue; }
+                gs.insertToken(moves.get(rnd.nextInt(moves.size())));
+            }
+            if(gs.isFinished() || gs.legalMoves().isEmpty()) continue;
+
+            var pvs = new MinMaxWizardWithPruning(6, true);
+            var plain = new MinMaxWizardWithPruning(6, true);
+            pvs.setThreads(1);
+            plain.setThreads(1);
+            plain.setPrincipalVariationSearch(false);
+            assertEquals(plain.alphaBetaSearch(gs), pvs.alphaBetaSearch(gs));
+            pvsNodes += pvs.getStatistics().get("nodes");
+            plainNodes += plain.getStatistics().get("nodes");
+        }
+        System.out.println("Nodes without PVS: " + plainNodes + ", with PVS: " + pvsNodes);
+        assertTrue(pvsNodes < plainNodes);
+    }
+
+    @Test
+    @DisplayName("A pondering ExpertAI guesses some replies right, stops pondering on close, and plays legal moves")
+    public void ExpertAI_with_pondering_Reports_ponder_hits() throws InterruptedException {
+        var tournament = new Tournament("PonderingAI", PonderingAI::new, "ExpertAI", ExpertAI::new, 6);
+        tournament.setThreads(1);
+        var summary = tournament.run(2, new PrintStream(OutputStream.nullOutputStream()));
+        System.out.println("Ponder hit rate: " + summary.getPonderHitRate(0));
+        assertEquals(0, summary.forfeits);
+        assertTrue(summary.getPonderHitRate(0) > 0);
+        assertEquals(0.0, summary.getPonderHitRate(1));
+        for(var thread : Thread.getAllStackTraces().keySet()) assertNotEquals("ExpertAI ponder", thread.getName());
+    }
+
+    @Test
+    @DisplayName("moveNow from another thread makes a long ExpertAI search return a legal move after reporting progress")
+    public void ExpertAI_Given_moveNow_Returns_legal_move_quickly() throws InterruptedException {
+        var ai = new ExpertAI(60_000);
+        var reports = new ArrayList<SearchProgress>();
+        ai.setProgressListener(p -> {
+            synchronized(reports) {
+                reports.add(p);
+            }
+        });
+        var s = new GameState(8, 1);
+        var stopper = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch(InterruptedException ignored) {}
+            ai.moveNow();
+        });
+        stopper.start();
+        var start = System.nanoTime();
+        var move = ai.decideMove(s);
+        var millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        stopper.join();
+
+        System.out.println("Stopped after " + millis + " ms, last report: " + reports.get(reports.size() - 1));
+        assertTrue(millis < 5_000);
+        assertTrue(s.legalMoves().contains(move));
+        assertFalse(reports.isEmpty());
+        assertEquals(move, reports.get(reports.size() - 1).getBest());
+        ai.moveNow(); //Nothing running: does nothing
+    }
+
+    @Test
+    @DisplayName("ExpertAI keeps to its time and to moveNow while solving the endgame")
+    public void ExpertAI_Given_Endgame_Solve_Runs_in_time() throws InterruptedException {
+        var s = new GameState(8, 1);
+        while(EndgameSolver.empties(s) > 26) s.insertToken(new RandomAI().decideMove(s)); //No passes this early in practice
+        var timed = new ExpertAI(100);
+        timed.setEndgameThreshold(26);
+        var start = System.nanoTime();
+        assertTrue(s.legalMoves().contains(timed.decideMove(s)));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+
+        var fixed = new ExpertAI();
+        fixed.setEndgameThreshold(26);
+        var stopper = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch(InterruptedException ignored) {}
+            fixed.moveNow();
+        });
+        stopper.start();
+        start = System.nanoTime();
+        assertTrue(s.legalMoves().contains(fixed.decideMove(s)));
+        stopper.join();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5_000);
+    }
+
+    @Test
+    @DisplayName("A wizard kept between moves reaches the depth of the next move faster than a new wizard")
+    public void alphaBetaSearch_with_reused_wizard_Reaches_depth_faster() {
+        var rnd = new Random(11);
+        long reusedNodes = 0, freshNodes = 0, reusedNanos = 0, freshNanos = 0;
+        for(var i = 0; i < 6; i++) {
+            var gs = new GameState(8, 1);
+            for(var j = 0; j < 6 + 3 * i && !gs.isFinished(); j++) {
+                var moves = gs.legalMoves();
+                if(moves.isEmpty()) { gs.changePlayer(); continue; }
+                gs.insertToken(moves.get(rnd.nextInt(moves.size())));
+            }
+            if(gs.isFinished() || gs.legalMoves().isEmpty()) continue;
+
+            //Move N, then the reply the search expects, so that move N+1 is in the searched tree
+            var reused = new MinMaxWizardWithPruning(7, true);
+            reused.setThreads(1);
+            gs.insertToken(reused.alphaBetaSearch(gs));
+            if(gs.legalMoves().isEmpty()) continue;
+            var reply = reused.hashMove(gs);
+            gs.insertToken(reply == TranspositionTable.NO_MOVE ? gs.legalMoves().get(0) : new Position(reply / 8, reply % 8));
+            if(gs.isFinished() || gs.legalMoves().isEmpty()) continue;
+
+            var fresh = new MinMaxWizardWithPruning(7, true);
+            fresh.setThreads(1);
+            var before = reused.getStatistics().get("nodes");
+            var start = System.nanoTime();
+            reused.alphaBetaSearch(gs);
+            reusedNanos += System.nanoTime() - start;
+            reusedNodes += reused.getStatistics().get("nodes") - before;
+            start = System.nanoTime();
+            fresh.alphaBetaSearch(gs);
+            freshNanos += System.nanoTime() - start;
+            freshNodes += fresh.getStatistics().get("nodes");
+        }
+        System.out.println("Time to depth 7 on move N+1 with a new wizard: " + freshNanos / 1_000_000 + " ms, " + freshNodes
+                + " nodes; with the wizard of move N: " + reusedNanos / 1_000_000 + " ms, " + reusedNodes + " nodes");
+        assertTrue(reusedNodes < freshNodes);
+    }
+
+    @Test
+    @DisplayName("Symmetric table keys find the mirrored and rotated states of the opening, and search fewer nodes")
+    public void alphaBetaSearch_with_symmetric_keys_Searches_fewer_nodes() {
+        for(var size : new int[] {8, 6}) {
+            var gs = new GameState(size, 1);
+            var plain = new MinMaxWizardWithPruning(7, true);
+            var symmetric = new MinMaxWizardWithPruning(7, true);
+            plain.setThreads(1);
+            symmetric.setThreads(1);
+            symmetric.setSymmetricKeys(true);
+
+            var move = symmetric.alphaBetaSearch(gs);
+            plain.alphaBetaSearch(gs);
+            assertTrue(gs.legalMoves().contains(move));
+            var plainRate = plain.getTable().getHitRate();
+            var symmetricRate = symmetric.getTable().getHitRate();
+            System.out.println(size + "x" + size + " start, depth 7. Hit rate with plain keys: " + plainRate + ", "
+                    + plain.getStatistics().get("nodes") + " nodes; with symmetric keys: " + symmetricRate + ", "
+                    + symmetric.getStatistics().get("nodes") + " nodes");
+            assertTrue(symmetric.getStatistics().get("nodes") < plain.getStatistics().get("nodes"));
+        }
+    }
+
     String getTimestamp() {
         return new SimpleDateFormat("HH.mm.ss.ms").format(new Date());
     }
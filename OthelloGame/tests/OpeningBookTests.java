@@ -0,0 +1,145 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTests {
+    @Test
+    @DisplayName("All eight symmetric states have the same canonical hash, and hashes match fresh states")
+    public void canonicalHash_Given_Symmetric_States_Returns_Same_Hash() {
+        var rnd = new Random(3);
+        for(var size : new int[] {6, 8, 10}) {
+            var symmetry = Symmetry.forSize(size);
+            var gs = new GameState(size, 1);
+            for(var ply = 0; ply < 12 && !gs.isFinished(); ply++) {
+                var moves = gs.legalMoves();
+                if(moves.isEmpty()) gs.changePlayer();
+                else gs.insertToken(moves.get(rnd.nextInt(moves.size())));
+                assertEquals(gs.getHash(), symmetry.hash(gs, 0));
+                for(var t = 0; t < Symmetry.COUNT; t++) {
+                    var other = symmetry.apply(gs, t);
+                    assertEquals(other.getHash(), symmetry.hash(gs, t));
+                    assertEquals(symmetry.canonicalHash(gs), symmetry.canonicalHash(other));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Turning 8x8 token masks with bit operations moves every square where the square map does")
+    public void transform_Given_Masks_Matches_Square_Map() {
+        var rnd = new Random(4);
+        var symmetry = Symmetry.forSize(8);
+        for(var i = 0; i < 100; i++) {
+            var mask = rnd.nextLong();
+            for(var t = 0; t < Symmetry.COUNT; t++) {
+                var expected = 0L;
+                for(var sq = 0; sq < 64; sq++) {
+                    if((mask >>> sq & 1) != 0) expected |= 1L << symmetry.squares[t][sq];
+                }
+                assertEquals(expected, Symmetry.transform(mask, t));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The player in turn changes the key, also where it could be taken for a token on square 0")
+    public void key_Given_Other_Player_and_Corner_Token_Returns_Different_Keys() {
+        var symmetry = Symmetry.forSize(8);
+        var rnd = new Random(7);
+        for(var i = 0; i < 100; i++) {
+            var board = new int[8][8];
+            for(var sq = 1; sq < 64; sq++) board[sq / 8][sq % 8] = rnd.nextInt(3);
+            var whiteInTurn = new GameState(board, 2);
+            board[0][0] = 2;
+            var blackInTurn = new GameState(board, 1);
+            for(var t = 0; t < Symmetry.COUNT; t++) {
+                assertNotEquals(symmetry.key(whiteInTurn, t), symmetry.key(blackInTurn, t));
+            }
+            assertNotEquals(symmetry.canonicalHash(whiteInTurn), symmetry.canonicalHash(blackInTurn));
+        }
+    }
+
+    @Test
+    @DisplayName("A written book gives a legal move, equal up to symmetry, for every symmetric variant of its positions")
+    public void move_Given_Book_Positions_Returns_Symmetric_Moves() throws IOException {
+        var size = 8;
+        IOthelloAI lastMove = s -> { var m = s.legalMoves(); return m.get(m.size() - 1); };
+        var builder = new OpeningBookBuilder(lastMove);
+        builder.expand(new GameState(size, 1), 3);
+        var file = Files.createTempFile("book", ".bin");
+        try {
+            builder.write(file, size);
+            var book = OpeningBook.open(file);
+            assertEquals(builder.size(), book.getEntries());
+            assertEquals(size, book.getSize());
+
+            var symmetry = Symmetry.forSize(size);
+            for(var s : positions(new GameState(size, 1), 3)) {
+                var move = book.move(s);
+                var played = new GameState(s);
+                assertTrue(played.insertToken(move));
+                for(var t = 0; t < Symmetry.COUNT; t++) {
+                    var other = symmetry.apply(s, t);
+                    var otherPlayed = new GameState(other);
+                    assertTrue(otherPlayed.insertToken(book.move(other)));
+                    assertEquals(symmetry.canonicalHash(played), symmetry.canonicalHash(otherPlayed));
+                }
+            }
+            assertEquals(TranspositionTable.NO_MOVE, book.move(new GameState(10, 1)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @DisplayName("BookAI plays book moves in the book and asks the fallback outside it")
+    public void BookAI_Given_Position_Outside_Book_Asks_Fallback() throws IOException {
+        var size = 8;
+        var builder = new OpeningBookBuilder(new DumAI());
+        builder.expand(new GameState(size, 1), 1);
+        var file = Files.createTempFile("book", ".bin");
+        try {
+            builder.write(file, size);
+            var asked = new int[1];
+            var ai = new BookAI(OpeningBook.open(file), s -> { asked[0]++; return new RandomAI().decideMove(s); });
+
+            var gs = new GameState(size, 1);
+            assertTrue(gs.insertToken(ai.decideMove(gs)));
+            assertTrue(gs.insertToken(ai.decideMove(gs)));
+            assertEquals(0, asked[0]);
+            assertTrue(gs.insertToken(ai.decideMove(gs)));
+            assertEquals(1, asked[0]);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Opening a file that is not a book throws")
+    public void open_Given_Other_File_Throws() throws IOException {
+        var file = Files.createTempFile("book", ".bin");
+        try {
+            Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+            assertThrows(IOException.class, () -> OpeningBook.open(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private ArrayList<GameState> positions(GameState s, int plies) {
+        var list = new ArrayList<GameState>();
+        list.add(s);
+        if(plies == 0) return list;
+        for(var pos : s.legalMoves()) {
+            var child = new GameState(s);
+            if(child.insertToken(pos)) list.addAll(positions(child, plies - 1));
+        }
+        return list;
+    }
+}
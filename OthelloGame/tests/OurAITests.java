@@ -1,8 +1,10 @@
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class OurAITests {
@@ -41,12 +43,86 @@ public class OurAITests {
     {
         RunGame(10);
     }
+    @Test
+    @DisplayName("OurAI with a time budget plays legal moves in time on a 10x10 board")
+    public void OurAI_Given_Time_Budget_on_Size10_Runs_in_time()
+    {
+        var ai = new OurAI(300);
+        GameState s = new GameState(10, 1);
+        for (int i = 0; i < 10 && !s.isFinished(); i++) {
+            if (s.legalMoves().isEmpty()) { s.changePlayer(); continue; }
+            var start = System.currentTimeMillis();
+            var move = ai.decideMove(s);
+            var timeTaken = System.currentTimeMillis() - start;
+            assertTrue(timeTaken < 600);
+            assertTrue(s.insertToken(move));
+            if (!s.isFinished() && !s.legalMoves().isEmpty()) s.insertToken(new RandomAI().decideMove(s));
+        }
+    }
+    @Test
+    @DisplayName("OurAI searches a fair number of nodes at depth 8 on a 10x10 board")
+    public void OurAI_Given_Size10_Searches_few_nodes()
+    {
+        var ai = new OurAI();
+        GameState s = new GameState(10, 1);
+        ai.decideMove(s);
+        System.out.println("Nodes: " + ai.getNodeCount());
+        assertTrue(ai.getNodeCount() < 2_000_000);
+    }
+    @Test
+    @DisplayName("moveNow from another thread stops a long search with a legal move, and a fixed-depth search too")
+    public void OurAI_Given_moveNow_Returns_legal_move()
+    {
+        var ai = new OurAI(60_000);
+        var reports = new ArrayList<SearchProgress>();
+        ai.setProgressListener(reports::add);
+        GameState s = new GameState(8, 1);
+        stopAfter(ai, 200);
+        var start = System.currentTimeMillis();
+        var move = ai.decideMove(s);
+        System.out.println("Stopped after " + (System.currentTimeMillis() - start) + " ms, last report: " + reports.get(reports.size() - 1));
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+        assertTrue(s.legalMoves().contains(move));
+        assertFalse(reports.isEmpty());
+
+        var fixed = new OurAI();
+        s = new GameState(12, 1);
+        stopAfter(fixed, 10); //Before the first root move is searched
+        assertTrue(s.legalMoves().contains(fixed.decideMove(s)));
+    }
+    @Test
+    @DisplayName("The time budget and moveNow also end an endgame solve, and a move is still played")
+    public void OurAI_Given_Endgame_Solve_Runs_in_time()
+    {
+        GameState s = new GameState(8, 1);
+        while (EndgameSolver.empties(s) > 26) s.insertToken(new RandomAI().decideMove(s)); //No passes this early in practice
+        var timed = new OurAI(100);
+        timed.setEndgameThreshold(26);
+        var start = System.currentTimeMillis();
+        assertTrue(s.legalMoves().contains(timed.decideMove(s)));
+        assertTrue(System.currentTimeMillis() - start < 1_000);
+
+        var fixed = new OurAI();
+        fixed.setEndgameThreshold(26);
+        stopAfter(fixed, 100);
+        start = System.currentTimeMillis();
+        assertTrue(s.legalMoves().contains(fixed.decideMove(s)));
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+    }
+    private void stopAfter(IInteractiveAI ai, long millis){
+        new Thread(() -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException ignored) {}
+            ai.moveNow();
+        }).start();
+    }
     private  void  RunGame(int size){
         GameState s = new GameState(size, 1);
         while (!s.isFinished()) {
-            if (s.insertToken(new OurAI().decideMove(s))) ;
-            if (s.isFinished()) break;
-            if (s.insertToken(new RandomAI().decideMove(s))) ;
+            if (s.getPlayerInTurn() == 1) s.insertToken(new OurAI().decideMove(s));
+            else s.insertToken(new RandomAI().decideMove(s));
+            if (!s.isFinished() && s.legalMoves().isEmpty()) s.changePlayer(); //Pass
         }
         assertTrue(s.countTokens()[0] > s.countTokens()[1]);
     }
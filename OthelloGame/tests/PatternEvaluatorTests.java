@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PatternEvaluatorTests {
+    @Test
+    @DisplayName("On 8x8 there are 4 edges, 4 3x3 corners, 8 2x5 corners and 18 diagonals")
+    public void Patterns_Given_Size8_Has_34_Instances() {
+        var patterns = Patterns.forSize(8);
+        assertEquals(34, patterns.instances());
+        assertThrows(IllegalArgumentException.class, () -> Patterns.forSize(12));
+    }
+
+    @Test
+    @DisplayName("Pattern indices stay equal to a recount through moves, unmoves and copies")
+    public void getPatternIndices_Given_Random_Games_Matches_Recount() {
+        var rnd = new Random(14);
+        for(var size : new int[] {6, 8, 10}) {
+            var patterns = Patterns.forSize(size);
+            for(var game = 0; game < 10; game++) {
+                var gs = new GameState(size, 1);
+                gs.setPatterns(patterns);
+                var moves = new int[size * size];
+                while(true) {
+                    var n = gs.expand(moves, 0);
+                    if(n == GameState.FINISHED) break;
+                    if(n == 0) {
+                        gs.makePass();
+                        continue;
+                    }
+                    var isUndoable = rnd.nextInt(4) != 0;
+                    if(isUndoable) gs.makeMove(moves[rnd.nextInt(n)]);
+                    else gs.insertToken(moves[rnd.nextInt(n)]);
+                    assertArrayEquals(patterns.indices(gs), gs.getPatternIndices());
+                    assertArrayEquals(gs.getPatternIndices(), new GameState(gs).getPatternIndices());
+                    if(isUndoable && rnd.nextInt(3) == 0) {
+                        gs.unmakeMove();
+                        assertArrayEquals(patterns.indices(gs), gs.getPatternIndices());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Weights written to a file and loaded again give the same evaluations")
+    public void load_Given_Written_Weights_Evaluates_The_Same() throws IOException {
+        var evaluator = PatternEvaluator.fromPositionalWeights(8, 4);
+        evaluator.setWeight(2, 0, 123, -77);
+        var file = Files.createTempFile("weights", ".bin");
+        try {
+            evaluator.write(file);
+            var loaded = PatternEvaluator.load(file);
+            assertEquals(4, loaded.getPhases());
+            assertEquals(-77, loaded.getWeight(2, 0, 123));
+
+            var rnd = new Random(15);
+            var gs = new GameState(8, 1);
+            while(!gs.isFinished()) {
+                var moves = gs.legalMoves();
+                if(moves.isEmpty()) gs.changePlayer();
+                else gs.insertToken(moves.get(rnd.nextInt(moves.size())));
+                assertEquals(evaluator.evaluate(gs, 1), loaded.evaluate(gs, 1));
+                assertEquals(-evaluator.evaluate(gs, 1), loaded.evaluate(gs, 2));
+            }
+
+            Files.write(file, new byte[] {1, 2, 3});
+            assertThrows(IOException.class, () -> PatternEvaluator.load(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @DisplayName("The wizard finds a legal move with the pattern evaluator, in place and with copies")
+    public void alphaBetaSearch_with_pattern_evaluator_Returns_legal_move() {
+        for(var isInPlace : new boolean[] {false, true}) {
+            var gs = new GameState(8, 1);
+            var wizard = new MinMaxWizardWithPruning(5, isInPlace);
+            wizard.setEvaluator(PatternEvaluator.fromPositionalWeights(8, 8));
+            for(var ply = 0; ply < 10; ply++) {
+                var pos = wizard.alphaBetaSearch(gs);
+                assertTrue(gs.legalMoves().contains(pos));
+                gs.insertToken(pos);
+            }
+            assertNull(gs.getPatterns());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTests {
+    @Test
+    @DisplayName("The counts of the 8x8 start position match the reference counts")
+    public void count_Given_Start_Returns_Reference_Counts() throws InterruptedException {
+        var perft = new Perft();
+        perft.setThreads(1);
+        var s = new GameState(8, 1);
+        for(var depth = 0; depth <= 8; depth++) assertEquals(Perft.REFERENCE_8X8[depth], perft.count(s, depth));
+        assertEquals(new GameState(8, 1).getHash(), s.getHash());
+    }
+
+    @Test
+    @DisplayName("The cache and the threads do not change the counts")
+    public void count_Given_Cache_And_Threads_Returns_Same_Counts() throws InterruptedException {
+        var perft = new Perft(1 << 16);
+        perft.setThreads(3);
+        var s = new GameState(8, 1);
+        assertEquals(Perft.REFERENCE_8X8[9], perft.count(s, 9));
+        assertEquals(Perft.REFERENCE_8X8[9], perft.count(s, 9));
+        assertTrue(perft.getStatistics().get("cacheHits") > 0);
+
+        var divided = 0L;
+        for(var c : perft.divide(s, 7)) divided += c;
+        assertEquals(Perft.REFERENCE_8X8[7], divided);
+    }
+
+    @Test
+    @DisplayName("Passes and finished games are counted like a walk with isFinished, changePlayer and insertToken")
+    public void count_Given_End_Of_Game_Counts_Passes() throws InterruptedException {
+        var rnd = new Random(5);
+        var perft = new Perft(1 << 12);
+        for(var game = 0; game < 20; game++) {
+            var s = new GameState(6, 1);
+            for(var ply = 0; ply < 20 + rnd.nextInt(8) && !s.isFinished(); ply++) {
+                var moves = s.legalMoves();
+                if(moves.isEmpty()) s.changePlayer();
+                else s.insertToken(moves.get(rnd.nextInt(moves.size())));
+            }
+            for(var depth = 1; depth <= 5; depth++) assertEquals(naive(s, depth), perft.count(s, depth));
+        }
+    }
+
+    private static long naive(GameState s, int depth) {
+        if(depth == 0 || new GameState(s).isFinished()) return 1;
+        var moves = s.legalMoves();
+        if(moves.isEmpty()) {
+            var passed = new GameState(s);
+            passed.changePlayer();
+            return naive(passed, depth - 1);
+        }
+        var count = 0L;
+        for(var square = 0; square < s.getSize() * s.getSize(); square++) {
+            var child = new GameState(s);
+            if(child.insertToken(square)) count += naive(child, depth - 1);
+        }
+        return count;
+    }
+}
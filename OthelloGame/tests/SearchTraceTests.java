@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTraceTests {
+    @Test
+    @DisplayName("Every node of a traced search is in the trace, and the renderer rebuilds its state")
+    public void render_Given_Traced_Search_Dumps_Every_Node() throws IOException {
+        var file = Files.createTempFile("trace", ".bin");
+        try {
+            var wizard = new MinMaxWizard(3, false, false, true);
+            var s = new GameState(6, 1);
+            try(var trace = new SearchTrace(file)) {
+                wizard.setTrace(trace);
+                wizard.minMaxDecision(s);
+                assertEquals(0, (long) trace.getStatistics().get("dropped"));
+            }
+            var recursions = wizard.getStatistics().get("recursionCalls");
+
+            var renderer = new TraceRenderer(file);
+            assertEquals((long) recursions, renderer.getNodes());
+            assertEquals(s.getHash(), renderer.state(0).getHash());
+            var child = new GameState(s);
+            child.insertToken(s.legalMoves().get(0));
+            assertEquals(child.getHash(), renderer.state(1).getHash());
+
+            var bytes = new ByteArrayOutputStream();
+            renderer.render(new PrintStream(bytes, true), Long.MAX_VALUE);
+            var text = bytes.toString();
+            assertEquals((long) recursions, text.split("Selected action: ", -1).length - 1);
+            assertTrue(text.contains("Depth: 3, window: [-1, 1], score: "));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("The depth filter and search sampling leave out nodes and searches")
+    public void node_Given_Filters_Records_Less() throws IOException {
+        var file = Files.createTempFile("trace", ".bin");
+        try {
+            var wizard = new MinMaxWizard(3);
+            var s = new GameState(6, 1);
+            try(var trace = new SearchTrace(file)) {
+                trace.setMaxDepth(0);
+                trace.setSampleInterval(2);
+                wizard.setTrace(trace);
+                wizard.minMaxDecision(s);
+                wizard.minMaxDecision(s);
+                assertEquals(2, (long) trace.getStatistics().get("searches"));
+            }
+            var renderer = new TraceRenderer(file);
+            assertEquals(s.legalMoves().size(), renderer.getNodes());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("A full buffer drops records instead of blocking, and what is written can still be read")
+    public void node_Given_Full_Buffer_Drops_Records() throws IOException {
+        var file = Files.createTempFile("trace", ".bin");
+        try {
+            long records, dropped;
+            try(var trace = new SearchTrace(file, 4)) {
+                var root = trace.startSearch(new GameState(8, 1));
+                for(var i = 0; i < 100000; i++) trace.node(trace.newNode(), root, 0, 19, 2, -1, 1, 0);
+                records = trace.getStatistics().get("records");
+                dropped = trace.getStatistics().get("dropped");
+            }
+            assertEquals(100002, records + dropped);
+            assertTrue(new TraceRenderer(file).getNodes() <= records);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("Records put while the trace is closed are either written or dropped, never lost")
+    public void close_Given_Concurrent_Nodes_Writes_Every_Record() throws IOException, InterruptedException {
+        var file = Files.createTempFile("trace", ".bin");
+        try {
+            var trace = new SearchTrace(file, 1 << 10);
+            var calls = new AtomicLong();
+            var threads = new ArrayList<Thread>();
+            for(var t = 0; t < 4; t++) {
+                var thread = new Thread(() -> {
+                    for(var i = 0; i < 200_000; i++) {
+                        trace.node(trace.newNode(), 0, 0, 19, 2, -1, 1, 0);
+                        calls.incrementAndGet();
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            Thread.sleep(20);
+            trace.close();
+            for(var thread : threads) thread.join();
+            var statistics = trace.getStatistics();
+            assertEquals(statistics.get("records"), statistics.get("written"));
+            assertEquals(calls.get(), statistics.get("records") + statistics.get("dropped"));
+            assertEquals(4 + 8 * SearchTrace.RECORD_LONGS * statistics.get("written"), Files.size(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TournamentTests {
+    @Test
+    @DisplayName("A match writes one JSON line per game and a summary, with both AIs playing black equally often")
+    public void run_Given_Games_Streams_Json_Lines() throws InterruptedException {
+        var tournament = new Tournament("DumAI", DumAI::new, "RandomAI", RandomAI::new, 6);
+        tournament.setThreads(3);
+        var bytes = new ByteArrayOutputStream();
+        var summary = tournament.run(20, new PrintStream(bytes, true));
+
+        var lines = bytes.toString().trim().split("\n");
+        assertEquals(21, lines.length);
+        var dumBlack = 0;
+        for(var i = 0; i < 20; i++) {
+            assertTrue(lines[i].startsWith("{\"type\":\"game\""));
+            if(lines[i].contains("\"black\":\"DumAI\"")) dumBlack++;
+        }
+        assertEquals(10, dumBlack);
+        assertTrue(lines[20].startsWith("{\"type\":\"summary\""));
+        assertEquals(20, summary.getGames());
+        assertEquals(20, summary.wins + summary.losses + summary.draws);
+    }
+
+    @Test
+    @DisplayName("An AI that plays an illegal move loses, and the Elo interval contains the Elo")
+    public void run_Given_Illegal_Moves_Forfeits() throws InterruptedException {
+        var tournament = new Tournament("DumAI", DumAI::new, "Cheater", () -> s -> new Position(0, 0), 6);
+        var summary = tournament.run(10, new PrintStream(new ByteArrayOutputStream()));
+        assertEquals(10, summary.wins);
+        assertEquals(10, summary.forfeits);
+        assertTrue(summary.getElo() > 400);
+        var interval = summary.getEloInterval();
+        assertTrue(interval[0] <= summary.getElo() && summary.getElo() <= interval[1]);
+    }
+}
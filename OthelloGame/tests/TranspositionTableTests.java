@@ -0,0 +1,76 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTests {
+    @Test
+    @DisplayName("A stored result can be probed back with all its fields")
+    public void probe_Given_Stored_Key_Returns_Stored_Data() {
+        var tt = new TranspositionTable(1024);
+        tt.store(42L, 7, TranspositionTable.LOWER, -1234, 63);
+
+        var entry = tt.probe(42L);
+
+        assertNotEquals(0L, entry);
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(-1234, TranspositionTable.score(entry));
+        assertEquals(63, TranspositionTable.move(entry));
+        assertEquals(0L, tt.probe(43L));
+    }
+
+    @Test
+    @DisplayName("A deep result is kept when shallower results for other keys land in the same bucket")
+    public void store_Keeps_Deepest_Entry_And_Replaces_The_Other() {
+        var tt = new TranspositionTable(2); //A single bucket
+        tt.store(1L, 9, TranspositionTable.EXACT, 10, TranspositionTable.NO_MOVE);
+        tt.store(2L, 3, TranspositionTable.EXACT, 20, TranspositionTable.NO_MOVE);
+        tt.store(3L, 2, TranspositionTable.EXACT, 30, TranspositionTable.NO_MOVE);
+
+        assertEquals(10, TranspositionTable.score(tt.probe(1L)));
+        assertEquals(0L, tt.probe(2L));
+        assertEquals(30, TranspositionTable.score(tt.probe(3L)));
+        assertEquals(TranspositionTable.NO_MOVE, TranspositionTable.move(tt.probe(3L)));
+    }
+
+    @Test
+    @DisplayName("After nextGeneration old entries can still be probed, but no longer keep their place from shallower results")
+    public void store_After_nextGeneration_Replaces_Old_Deep_Entry() {
+        var tt = new TranspositionTable(2); //A single bucket
+        tt.store(1L, 9, TranspositionTable.EXACT, 10, TranspositionTable.NO_MOVE);
+        tt.nextGeneration();
+        assertEquals(10, TranspositionTable.score(tt.probe(1L)));
+
+        tt.store(2L, 3, TranspositionTable.EXACT, 20, TranspositionTable.NO_MOVE);
+        tt.store(3L, 2, TranspositionTable.EXACT, 30, TranspositionTable.NO_MOVE);
+
+        assertEquals(0L, tt.probe(1L));
+        assertEquals(20, TranspositionTable.score(tt.probe(2L)));
+        assertEquals(30, TranspositionTable.score(tt.probe(3L)));
+    }
+
+    @Test
+    @DisplayName("Searching with a transposition table picks the same moves as searching without one, and hits the table")
+    public void alphaBetaSearch_with_table_Matches_search_without_table() {
+        var rnd = new Random(4);
+        for(var i = 0; i < 10; i++) {
+            var gs = new GameState(8, 1);
+            for(var m = rnd.nextInt(30); m > 0 && !gs.isFinished(); m--) {
+                if(gs.legalMoves().isEmpty()) gs.changePlayer();
+                gs.insertToken(new RandomAI().decideMove(gs));
+            }
+            if(gs.isFinished()) continue;
+            if(gs.legalMoves().isEmpty()) gs.changePlayer();
+
+            var withTable    = new MinMaxWizardWithPruning(5, true);
+            var withoutTable = new MinMaxWizardWithPruning(5, true, 0);
+
+            assertEquals(withoutTable.alphaBetaSearch(gs), withTable.alphaBetaSearch(gs));
+            assertTrue(withTable.getStatistics().get("hits") > 0);
+            System.out.println("Hit rate: " + withTable.getTable().getHitRate() + ", cutoff rate: " + withTable.getTable().getCutoffRate());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WizardStatisticsTests {
+    @Test
+    @DisplayName("Counts from several threads at once are not lost, and reset sets them to 0")
+    public void count_Given_Threads_Counts_Every_Call() throws InterruptedException {
+        var statistics = new WizardStatistics();
+        var threads = new Thread[4];
+        for(var t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for(var i = 0; i < 100000; i++) {
+                    statistics.count(MinMaxWizard.WizardAction.UTILITY);
+                    statistics.time(MinMaxWizard.WizardAction.UTILITY, i);
+                }
+            });
+            threads[t].start();
+        }
+        for(var thread : threads) thread.join();
+
+        var snapshot = statistics.snapshot();
+        assertEquals(400000, snapshot.getCalls(MinMaxWizard.WizardAction.UTILITY));
+        assertEquals(400000, snapshot.getTimed(MinMaxWizard.WizardAction.UTILITY));
+        assertEquals(4 * (99999L * 100000 / 2), snapshot.getNanos(MinMaxWizard.WizardAction.UTILITY));
+
+        statistics.reset();
+        assertEquals(0, statistics.snapshot().getCalls(MinMaxWizard.WizardAction.UTILITY));
+        assertEquals(400000, snapshot.getCalls(MinMaxWizard.WizardAction.UTILITY));
+    }
+
+    @Test
+    @DisplayName("Times go in power of two buckets, and quantiles are the upper bound of their bucket")
+    public void snapshot_Given_Times_Returns_Histogram_And_Quantiles() {
+        var statistics = new WizardStatistics();
+        for(var i = 0; i < 90; i++) statistics.time(MinMaxWizard.WizardAction.RESULT, 100);    //Bucket 6: 64 to 127
+        for(var i = 0; i < 10; i++) statistics.time(MinMaxWizard.WizardAction.RESULT, 5000);   //Bucket 12: 4096 to 8191
+
+        var snapshot = statistics.snapshot();
+        assertEquals(90, snapshot.getHistogram(MinMaxWizard.WizardAction.RESULT)[6]);
+        assertEquals(10, snapshot.getHistogram(MinMaxWizard.WizardAction.RESULT)[12]);
+        assertEquals(128, snapshot.getQuantileNanos(MinMaxWizard.WizardAction.RESULT, 0.5));
+        assertEquals(8192, snapshot.getQuantileNanos(MinMaxWizard.WizardAction.RESULT, 0.99));
+        assertEquals(590.0, snapshot.getMeanNanos(MinMaxWizard.WizardAction.RESULT), 1e-9);
+        assertEquals(0, snapshot.getQuantileNanos(MinMaxWizard.WizardAction.ACTION, 0.5));
+    }
+
+    @Test
+    @DisplayName("A wizard in statistics and diagnostic mode counts every call and times a sample of them")
+    public void minMaxDecision_Given_Diagnostic_Mode_Records_Actions() {
+        var wizard = new MinMaxWizard(3, false, true, true);
+        wizard.getDiagnostics().setSampleInterval(4);
+        wizard.minMaxDecision(new GameState(8, 1));
+
+        var snapshot = wizard.getDiagnostics().snapshot();
+        var results = snapshot.getCalls(MinMaxWizard.WizardAction.RESULT);
+        assertEquals(results, (long) wizard.getStatistics().get("resultCalls"));
+        assertEquals(1, snapshot.getCalls(MinMaxWizard.WizardAction.MIN_MAX_DECISION));
+        assertTrue(snapshot.getTimed(MinMaxWizard.WizardAction.RESULT) > 0);
+        assertTrue(snapshot.getTimed(MinMaxWizard.WizardAction.RESULT) < results);
+    }
+}